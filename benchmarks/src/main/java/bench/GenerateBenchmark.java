@@ -0,0 +1,44 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Throughput della generazione headless per ogni algoritmo e dimensione.
+// Ogni operazione riparte da un labirinto vuoto, quindi include un reset (misurato a parte da ResetBenchmark).
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+@State(Scope.Thread)
+public class GenerateBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    @Param({"DFS", "Kruskal", "Prim", "Wilson", "Hunt-and-Kill", "Eller", "DFS parallela"})
+    public String algorithm;
+
+    private Object maze;
+    private Object generator;
+
+    // Celle generate al secondo, riportate accanto alle operazioni al secondo
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Cells {
+        public long cells;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        maze = Targets.newMaze(size, size);
+        generator = Targets.algorithm(algorithm);
+    }
+
+    @Benchmark
+    public Object generate(Cells counter) {
+        Targets.reset(maze);
+        Targets.generate(maze, generator);
+        counter.cells += (long) size * size;
+        return maze;
+    }
+}
@@ -0,0 +1,48 @@
+package bench;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import javax.swing.JPanel;
+import org.openjdk.jmh.annotations.*;
+
+// Un frame di MazePanel disegnato in una BufferedImage fuori schermo delle dimensioni di un monitor.
+// Il pannello ha la sua dimensione preferita, quindi per i labirinti grandi l'immagine ne mostra solo una parte,
+// come la viewport dello JScrollPane in MazeUI.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g", "-Djava.awt.headless=true"})
+@State(Scope.Thread)
+public class PaintBenchmark {
+    private static final int FRAME_WIDTH = 1920;
+    private static final int FRAME_HEIGHT = 1080;
+
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    private JPanel panel;
+    private BufferedImage frame;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Object maze = Targets.newMaze(size, size);
+        Targets.generate(maze, Targets.algorithm("DFS"));
+        panel = Targets.newPanel(maze);
+        panel.setSize(panel.getPreferredSize());
+        frame = new BufferedImage(FRAME_WIDTH, FRAME_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    @Benchmark
+    public BufferedImage paint() {
+        Graphics2D g = frame.createGraphics();
+        try {
+            g.setClip(0, 0, FRAME_WIDTH, FRAME_HEIGHT);
+            panel.paint(g); // paint() chiama paintComponent con il clip della viewport
+        } finally {
+            g.dispose();
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,30 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Costo di Maze.reset su un labirinto gia' generato
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+@State(Scope.Thread)
+public class ResetBenchmark {
+    @Param({"10", "100", "1000", "10000"})
+    public int size;
+
+    private Object maze;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        maze = Targets.newMaze(size, size);
+        Targets.generate(maze, Targets.algorithm("DFS"));
+    }
+
+    @Benchmark
+    public Object reset() {
+        Targets.reset(maze);
+        return maze;
+    }
+}
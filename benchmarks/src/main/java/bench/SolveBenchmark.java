@@ -0,0 +1,35 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Tempo di risoluzione di ogni risolutore su un labirinto DFS gia' generato (percorsi lunghi, molti vicoli)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+@State(Scope.Thread)
+public class SolveBenchmark {
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    @Param({"BFS", "A*", "BFS bidirezionale", "Riempimento vicoli"})
+    public String solver;
+
+    private Object storage;
+    private Object target;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Object maze = Targets.newMaze(size, size);
+        Targets.generate(maze, Targets.algorithm("DFS"));
+        storage = Targets.storage(maze);
+        target = Targets.solver(solver);
+    }
+
+    @Benchmark
+    public int[] solve() {
+        return Targets.solve(target, storage);
+    }
+}
@@ -0,0 +1,138 @@
+package bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import javax.swing.JPanel;
+
+// JMH non accetta benchmark nel package di default e una classe in un package non puo' importare
+// le classi del progetto, che stanno nel package di default. Si passa quindi da MethodHandle
+// static final: il JIT li tratta come costanti e la chiamata costa quanto una chiamata diretta.
+final class Targets {
+    private static final MethodHandle NEW_MAZE;
+    private static final MethodHandle GENERATE;
+    private static final MethodHandle RESET;
+    private static final MethodHandle NEW_PANEL;
+    private static final MethodHandle ALL_ALGORITHMS;
+    private static final MethodHandle ALGORITHM_NAME;
+    private static final MethodHandle STORAGE;
+    private static final MethodHandle ALL_SOLVERS;
+    private static final MethodHandle SOLVER_NAME;
+    private static final MethodHandle SOLVE;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            Class<?> maze = Class.forName("Maze");
+            Class<?> algorithm = Class.forName("MazeAlgorithm");
+            Class<?> listener = Class.forName("CarveListener");
+            Class<?> panel = Class.forName("MazePanel");
+            Class<?> algorithms = Class.forName("MazeAlgorithms");
+            Class<?> storage = Class.forName("MazeStorage");
+            Class<?> solver = Class.forName("MazeSolver");
+            Class<?> solvers = Class.forName("MazeSolvers");
+
+            NEW_MAZE = lookup.findConstructor(maze, MethodType.methodType(void.class, int.class, int.class))
+                    .asType(MethodType.methodType(Object.class, int.class, int.class));
+            GENERATE = MethodHandles.insertArguments(
+                    lookup.findVirtual(maze, "generate", MethodType.methodType(void.class, algorithm, listener)),
+                    2, (Object) null)
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+            RESET = lookup.findVirtual(maze, "reset", MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(void.class, Object.class));
+            NEW_PANEL = lookup.findConstructor(panel, MethodType.methodType(void.class, maze))
+                    .asType(MethodType.methodType(JPanel.class, Object.class));
+            ALL_ALGORITHMS = lookup.findStatic(algorithms, "all", MethodType.methodType(List.class));
+            ALGORITHM_NAME = lookup.findVirtual(algorithm, "getName", MethodType.methodType(String.class))
+                    .asType(MethodType.methodType(String.class, Object.class));
+            STORAGE = lookup.findVirtual(maze, "getStorage", MethodType.methodType(storage))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            ALL_SOLVERS = lookup.findStatic(solvers, "all", MethodType.methodType(List.class));
+            SOLVER_NAME = lookup.findVirtual(solver, "getName", MethodType.methodType(String.class))
+                    .asType(MethodType.methodType(String.class, Object.class));
+            SOLVE = lookup.findVirtual(solver, "solve", MethodType.methodType(int[].class, storage))
+                    .asType(MethodType.methodType(int[].class, Object.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private Targets() {}
+
+    static Object newMaze(int rows, int cols) {
+        try {
+            return (Object) NEW_MAZE.invokeExact(rows, cols);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void generate(Object maze, Object algorithm) {
+        try {
+            GENERATE.invokeExact(maze, algorithm);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void reset(Object maze) {
+        try {
+            RESET.invokeExact(maze);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static JPanel newPanel(Object maze) {
+        try {
+            return (JPanel) NEW_PANEL.invokeExact(maze);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object algorithm(String name) {
+        try {
+            for (Object algorithm : (List<?>) ALL_ALGORITHMS.invoke()) {
+                if (((String) ALGORITHM_NAME.invokeExact(algorithm)).equals(name)) return algorithm;
+            }
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+        throw new IllegalArgumentException("Algoritmo sconosciuto: " + name);
+    }
+
+    static Object storage(Object maze) {
+        try {
+            return (Object) STORAGE.invokeExact(maze);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static int[] solve(Object solver, Object storage) {
+        try {
+            return (int[]) SOLVE.invokeExact(solver, storage);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object solver(String name) {
+        try {
+            for (Object solver : (List<?>) ALL_SOLVERS.invoke()) {
+                if (((String) SOLVER_NAME.invokeExact(solver)).equals(name)) return solver;
+            }
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+        throw new IllegalArgumentException("Risolutore sconosciuto: " + name);
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException) return (RuntimeException) t;
+        if (t instanceof Error) throw (Error) t;
+        return new IllegalStateException(t);
+    }
+}
@@ -0,0 +1,85 @@
+import java.util.Arrays;
+
+// A* con distanza di Manhattan dall'uscita, anche su labirinti con cicli (quelli caricati da file possono averne).
+// Lo heap binario contiene long (chiave << 33 | direzione del genitore << 31 | cella), quindi niente oggetti per nodo.
+// A ogni passo g cresce di 1 e h cambia di 1, quindi f - h(entrata) e' pari e non supera g: la chiave e' la sua meta',
+// 30 bit anche con Integer.MAX_VALUE celle, e g si ricava dalla chiave. Una cella puo' entrare piu' volte nello heap;
+// si chiude quando esce la prima volta, che con un'euristica consistente e' quella col g minimo, e le copie
+// successive si scartano. Il genitore si scrive alla chiusura, quindi e' sempre quello del percorso piu' corto.
+public class AStarSolver implements MazeSolver {
+    @Override
+    public String getName() {
+        return "A*";
+    }
+
+    @Override
+    public int[] solve(MazeStorage storage) {
+        int rows = storage.getRows(), cols = storage.getCols();
+        int cells = rows * cols;
+        int start = 0, goal = cells - 1;
+
+        long[] closed = MazeSolvers.newBitmap(cells);
+        long[] parents = MazeSolvers.newParents(cells);
+        long[] heap = new long[1024];
+        int size = 0;
+        long h0 = distance(start, rows, cols);
+
+        heap[size++] = start;
+        while (size > 0) {
+            long top = heap[0];
+            heap[0] = heap[--size];
+            siftDown(heap, size);
+
+            int cell = (int) (top & Integer.MAX_VALUE);
+            if (MazeSolvers.testBit(closed, cell)) continue;   // Copia con un g peggiore
+            MazeSolvers.setBit(closed, cell);
+            if (cell != start) MazeSolvers.setParent(parents, cell, (int) (top >>> 31) & 3);
+            if (cell == goal) return MazeSolvers.tracePath(parents, start, goal, cols);
+
+            long g = 2 * (top >>> 33) + h0 - distance(cell, rows, cols);
+            int r = cell / cols, c = cell % cols;
+            for (int dir = 0; dir < 4; dir++) {
+                if (!Maze.isOpen(storage, r, c, dir)) continue;
+                int next = MazeSolvers.step(cell, dir, cols);
+                if (MazeSolvers.testBit(closed, next)) continue;
+
+                long key = (g + 1 + distance(next, rows, cols) - h0) >>> 1;
+                if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+                heap[size] = (key << 33) | ((long) Maze.opposite(dir) << 31) | next;
+                siftUp(heap, size++);
+            }
+        }
+        return new int[0];
+    }
+
+    // Distanza di Manhattan dall'uscita
+    private static long distance(int cell, int rows, int cols) {
+        return (rows - 1 - cell / cols) + (cols - 1 - cell % cols);
+    }
+
+    private static void siftUp(long[] heap, int i) {
+        long item = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= item) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = item;
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        if (size == 0) return;
+        long item = heap[0];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && heap[child + 1] < heap[child]) child++;
+            if (heap[child] >= item) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = item;
+    }
+}
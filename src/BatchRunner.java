@@ -0,0 +1,200 @@
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Generazione in serie senza interfaccia grafica: un labirinto per task, in parallelo, e un solo thread
+// che scrive i risultati in coda su un file. I labirinti in memoria sono al massimo MAX_IN_FLIGHT:
+// se il disco e' lento si ferma la coda, poi i generatori, poi l'invio di nuovi task.
+// Generano insieme al massimo --threads labirinti, anche sui thread virtuali.
+//
+// File: "MAZB", versione, algoritmo (indice in MazeAlgorithms), numero di labirinti; poi per ogni labirinto
+// righe, colonne, seed e i piani est e sud come long little-endian (una riga = (cols + 63) / 64 long).
+// I labirinti sono nell'ordine in cui finiscono, non in quello dei seed: il seed di ognuno e' nel record.
+public class BatchRunner {
+    private static final int MAGIC = 0x4D415A42; // "MAZB"
+    private static final int VERSION = 1;
+    private static final int QUEUE_CAPACITY = 64;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final BatchSpec spec;
+    private boolean virtualThreads;
+    private long mazes, cells, bytes, elapsedNanos;
+
+    public BatchRunner(BatchSpec spec) {
+        this.spec = spec;
+    }
+
+    public static void main(String[] args) throws Exception {
+        BatchSpec spec;
+        try {
+            spec = BatchSpec.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(BatchSpec.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        BatchRunner runner = new BatchRunner(spec);
+        runner.run();
+        double seconds = runner.getElapsedNanos() / 1e9;
+        System.out.printf("%d labirinti (%s) in %.2f s, %d generatori in parallelo su %s%n", runner.getMazes(),
+                spec.getAlgorithm().getName(), seconds, runner.getParallelism(),
+                runner.usedVirtualThreads() ? "thread virtuali" : "un pool di " + spec.getThreads() + " thread");
+        System.out.printf("%.0f labirinti/s, %.0f celle/s, %d byte scritti in %s%n",
+                runner.getMazes() / seconds, runner.getCells() / seconds, runner.getBytes(), spec.getOutput());
+    }
+
+    public void run() throws IOException, InterruptedException {
+        int maxInFlight = QUEUE_CAPACITY + spec.getThreads();
+        BlockingQueue<Generated> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        Semaphore running = new Semaphore(spec.getThreads());   // Generatori attivi: conta solo coi thread virtuali
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        long start = System.nanoTime();
+
+        Thread writer = new Thread(() -> {
+            try {
+                write(queue, inFlight);
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+                drain(queue, inFlight); // I generatori non devono restare bloccati sulla coda piena
+            }
+        }, "batch-writer");
+        writer.start();
+
+        ExecutorService executor = newExecutor(spec.getThreads());
+        try {
+            for (int i = 0; i < spec.getCount() && failure.get() == null; i++) {
+                inFlight.acquire();
+                int index = i;
+                executor.execute(() -> {
+                    try {
+                        Maze maze;
+                        running.acquire();
+                        try {
+                            maze = new Maze(spec.getRows(index), spec.getCols(index));
+                            maze.generate(spec.getAlgorithm(), spec.getSeed(index), null);
+                        } finally {
+                            running.release();
+                        }
+                        queue.put(new Generated(maze, spec.getSeed(index)));
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                        inFlight.release();
+                    }
+                });
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            queue.put(Generated.END);
+            writer.join();
+        }
+        elapsedNanos = System.nanoTime() - start;
+
+        Throwable t = failure.get();
+        if (t instanceof IOException) throw (IOException) t;
+        if (t != null) throw new IllegalStateException("Generazione in serie fallita", t);
+    }
+
+    private void write(BlockingQueue<Generated> queue, Semaphore inFlight) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(spec.getOutput(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            // Il numero di labirinti si riscrive alla fine, nel caso la serie si interrompa
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(MazeAlgorithms.all().indexOf(spec.getAlgorithm())).putInt(0);
+
+            while (true) {
+                Generated item = queue.take();
+                if (item == Generated.END) break;
+
+                MazeStorage storage = item.maze.getStorage();
+                if (buffer.remaining() < 16) flush(channel, buffer);
+                buffer.putInt(storage.getRows()).putInt(storage.getCols()).putLong(item.seed);
+                long words = 2 * storage.wordsPerPlane; // Piani est e sud, contigui
+                for (long w = 0; w < words; w++) {
+                    if (buffer.remaining() < Long.BYTES) flush(channel, buffer);
+                    buffer.putLong(storage.getWord(w));
+                }
+
+                mazes++;
+                cells += (long) storage.getRows() * storage.getCols();
+                inFlight.release();
+            }
+            flush(channel, buffer);
+            bytes = channel.position();
+
+            buffer.putInt((int) mazes).flip();
+            channel.write(buffer, 12);
+        }
+    }
+
+    private static void drain(BlockingQueue<Generated> queue, Semaphore inFlight) {
+        try {
+            while (queue.take() != Generated.END) {
+                inFlight.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Thread virtuali se la JVM li offre (Java 21+), cercati per riflessione perche' il progetto compila
+    // con Java 11; altrimenti un pool fisso. La generazione e' tutta CPU, quindi anche sui thread virtuali
+    // il semaforo running ne lascia girare al massimo threads: gli altri, come quelli fermi sulla coda
+    // di scrittura piena, aspettano senza occupare un thread del sistema.
+    private ExecutorService newExecutor(int threads) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService executor = (ExecutorService) factory.invoke(null);
+            virtualThreads = true;
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(threads);
+        }
+    }
+
+    public long getMazes() { return mazes; }
+    public long getCells() { return cells; }
+    public long getBytes() { return bytes; }
+    public long getElapsedNanos() { return elapsedNanos; }
+    public boolean usedVirtualThreads() { return virtualThreads; }
+
+    // Generatori che girano davvero insieme: i thread virtuali non superano i thread portatori
+    public int getParallelism() {
+        if (!virtualThreads) return spec.getThreads();
+        int carriers = Integer.getInteger("jdk.virtualThreadScheduler.parallelism", Runtime.getRuntime().availableProcessors());
+        return Math.min(spec.getThreads(), carriers);
+    }
+
+    private static final class Generated {
+        static final Generated END = new Generated(null, 0);
+
+        final Maze maze;
+        final long seed;
+
+        Generated(Maze maze, long seed) {
+            this.maze = maze;
+            this.seed = seed;
+        }
+    }
+}
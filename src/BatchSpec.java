@@ -0,0 +1,115 @@
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+// Cosa generare in una serie: quanti labirinti, con quali dimensioni, algoritmo e seed.
+// Il labirinto i-esimo usa il seed firstSeed + i e la dimensione i-esima dell'elenco (a rotazione).
+public class BatchSpec {
+    public static final String USAGE =
+        "Uso: java BatchRunner --out FILE [--count N] [--seeds DA[..A]] [--size RxC[,RxC...]]\n" +
+        "                      [--algorithm NOME] [--threads N]";
+
+    private final int count;
+    private final int[] rows;
+    private final int[] cols;
+    private final MazeAlgorithm algorithm;
+    private final long firstSeed;
+    private final Path output;
+    private final int threads;
+
+    public BatchSpec(int count, int[] rows, int[] cols, MazeAlgorithm algorithm, long firstSeed, Path output, int threads) {
+        if (count < 1) throw new IllegalArgumentException("Numero di labirinti non valido: " + count);
+        if (rows.length == 0 || rows.length != cols.length) throw new IllegalArgumentException("Dimensioni mancanti");
+        if (threads < 1) throw new IllegalArgumentException("Numero di thread non valido: " + threads);
+        for (int i = 0; i < rows.length; i++) {
+            if (!HeapMazeStorage.fits(rows[i], cols[i])) {
+                throw new IllegalArgumentException("Dimensione non valida: " + rows[i] + "x" + cols[i]);
+            }
+        }
+        this.count = count;
+        this.rows = rows.clone();
+        this.cols = cols.clone();
+        this.algorithm = algorithm;
+        this.firstSeed = firstSeed;
+        this.output = output;
+        this.threads = threads;
+    }
+
+    public int getCount() { return count; }
+    public int getRows(int index) { return rows[index % rows.length]; }
+    public int getCols(int index) { return cols[index % cols.length]; }
+    public long getSeed(int index) { return firstSeed + index; }
+    public MazeAlgorithm getAlgorithm() { return algorithm; }
+    public Path getOutput() { return output; }
+    public int getThreads() { return threads; }
+
+    public static BatchSpec parse(String[] args) {
+        Integer count = null;
+        Long lastSeed = null;
+        long firstSeed = 0;
+        List<int[]> sizes = new ArrayList<>();
+        MazeAlgorithm algorithm = MazeAlgorithms.DEPTH_FIRST;
+        Path output = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (i + 1 >= args.length) throw new IllegalArgumentException("Valore mancante per " + option);
+            String value = args[++i];
+            try {
+                switch (option) {
+                    case "--count":
+                        count = Integer.parseInt(value);
+                        break;
+                    case "--seeds": {
+                        int range = value.indexOf("..");
+                        firstSeed = Long.parseLong(range < 0 ? value : value.substring(0, range));
+                        if (range >= 0) lastSeed = Long.parseLong(value.substring(range + 2));
+                        break;
+                    }
+                    case "--size":
+                        for (String size : value.split(",")) {
+                            String[] parts = size.trim().split("[xX×]");
+                            if (parts.length != 2) throw new IllegalArgumentException("Dimensione non valida: " + size);
+                            sizes.add(new int[] {Integer.parseInt(parts[0]), Integer.parseInt(parts[1])});
+                        }
+                        break;
+                    case "--algorithm":
+                        algorithm = MazeAlgorithms.byName(value);
+                        break;
+                    case "--out":
+                        output = Paths.get(value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Opzione sconosciuta: " + option);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Numero non valido per " + option + ": " + value);
+            }
+        }
+
+        if (output == null) throw new IllegalArgumentException("Manca --out");
+        if (lastSeed != null) {
+            if (lastSeed < firstSeed) throw new IllegalArgumentException("Intervallo di seed vuoto");
+            long available = lastSeed - firstSeed + 1;
+            if (count == null) {
+                count = (int) Math.min(Integer.MAX_VALUE, available);
+            } else if (count > available) {
+                throw new IllegalArgumentException("L'intervallo contiene solo " + available + " seed");
+            }
+        }
+        if (count == null) throw new IllegalArgumentException("Serve --count oppure un intervallo --seeds DA..A");
+        if (sizes.isEmpty()) sizes.add(new int[] {20, 20});
+
+        int[] rows = new int[sizes.size()], cols = new int[sizes.size()];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = sizes.get(i)[0];
+            cols[i] = sizes.get(i)[1];
+        }
+        return new BatchSpec(count, rows, cols, algorithm, firstSeed, output, threads);
+    }
+}
@@ -0,0 +1,37 @@
+// Ricerca in ampiezza dall'entrata: trova il percorso piu' breve anche in labirinti con cicli.
+// Coda di int, visitate in una bitmap e genitori a 2 bit per cella: nessuna allocazione per cella.
+public class BfsSolver implements MazeSolver {
+    @Override
+    public String getName() {
+        return "BFS";
+    }
+
+    @Override
+    public int[] solve(MazeStorage storage) {
+        int rows = storage.getRows(), cols = storage.getCols();
+        int cells = rows * cols;
+        int start = 0, goal = cells - 1;
+
+        long[] visited = MazeSolvers.newBitmap(cells);
+        long[] parents = MazeSolvers.newParents(cells);
+        IntQueue queue = new IntQueue();
+        MazeSolvers.setBit(visited, start);
+        queue.add(start);
+
+        while (!queue.isEmpty()) {
+            int cell = queue.remove();
+            if (cell == goal) return MazeSolvers.tracePath(parents, start, goal, cols);
+
+            int r = cell / cols, c = cell % cols;
+            for (int dir = 0; dir < 4; dir++) {
+                if (!Maze.isOpen(storage, r, c, dir)) continue;
+                int next = MazeSolvers.step(cell, dir, cols);
+                if (MazeSolvers.testBit(visited, next)) continue;
+                MazeSolvers.setBit(visited, next);
+                MazeSolvers.setParent(parents, next, Maze.opposite(dir));
+                queue.add(next);
+            }
+        }
+        return new int[0];
+    }
+}
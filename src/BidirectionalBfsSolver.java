@@ -0,0 +1,63 @@
+// Ricerca in ampiezza da entrambe le estremita': si espande sempre la frontiera piu' piccola
+// e ci si ferma quando le due ricerche si toccano. Un'unica tabella di genitori serve entrambe,
+// perche' ogni cella viene raggiunta da una sola delle due.
+public class BidirectionalBfsSolver implements MazeSolver {
+    @Override
+    public String getName() {
+        return "BFS bidirezionale";
+    }
+
+    @Override
+    public int[] solve(MazeStorage storage) {
+        int rows = storage.getRows(), cols = storage.getCols();
+        int cells = rows * cols;
+        int start = 0, goal = cells - 1;
+        if (start == goal) return new int[] {start};
+
+        long[] fromStart = MazeSolvers.newBitmap(cells);
+        long[] fromGoal = MazeSolvers.newBitmap(cells);
+        long[] parents = MazeSolvers.newParents(cells);
+        IntQueue startQueue = new IntQueue();
+        IntQueue goalQueue = new IntQueue();
+        MazeSolvers.setBit(fromStart, start);
+        MazeSolvers.setBit(fromGoal, goal);
+        startQueue.add(start);
+        goalQueue.add(goal);
+
+        while (!startQueue.isEmpty() && !goalQueue.isEmpty()) {
+            boolean forward = startQueue.size() <= goalQueue.size();
+            IntQueue queue = forward ? startQueue : goalQueue;
+            long[] own = forward ? fromStart : fromGoal;
+            long[] other = forward ? fromGoal : fromStart;
+
+            // Un livello intero alla volta, cosi' il punto d'incontro da' il percorso piu' breve
+            for (int level = queue.size(); level > 0; level--) {
+                int cell = queue.remove();
+                int r = cell / cols, c = cell % cols;
+                for (int dir = 0; dir < 4; dir++) {
+                    if (!Maze.isOpen(storage, r, c, dir)) continue;
+                    int next = MazeSolvers.step(cell, dir, cols);
+                    if (MazeSolvers.testBit(other, next)) {
+                        return forward ? join(parents, start, goal, cell, next, cols)
+                                       : join(parents, start, goal, next, cell, cols);
+                    }
+                    if (MazeSolvers.testBit(own, next)) continue;
+                    MazeSolvers.setBit(own, next);
+                    MazeSolvers.setParent(parents, next, Maze.opposite(dir));
+                    queue.add(next);
+                }
+            }
+        }
+        return new int[0];
+    }
+
+    // 'last' e' stata raggiunta dall'entrata, 'first' dall'uscita, e sono adiacenti
+    private static int[] join(long[] parents, int start, int goal, int last, int first, int cols) {
+        int[] head = MazeSolvers.tracePath(parents, start, last, cols);
+        int[] tail = MazeSolvers.tracePath(parents, goal, first, cols);
+        int[] path = new int[head.length + tail.length];
+        System.arraycopy(head, 0, path, 0, head.length);
+        for (int i = 0; i < tail.length; i++) path[head.length + i] = tail[tail.length - 1 - i];
+        return path;
+    }
+}
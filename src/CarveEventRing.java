@@ -0,0 +1,79 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+// Coda circolare a produttore e consumatore singoli degli eventi di scavo, codificati come in CarveLog:
+// il thread di generazione li aggiunge senza mai bloccarsi, l'EDT li preleva a ogni frame.
+// Gli indici crescono sempre e si riducono con una maschera. Ogni thread scrive solo il proprio indice,
+// con una scrittura ordinata (lazySet) invece di una barriera completa, e tiene una copia dell'indice
+// dell'altro da rileggere solo quando la coda sembra piena (o vuota).
+// Se la coda si riempie il produttore smette per sempre di aggiungere: gli eventi ricevuti restano
+// un prefisso esatto della generazione, e il resto si legge dal CarveLog completo.
+public class CarveEventRing implements CarveListener {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    public static final int EMPTY = -1;   // Gli eventi non sono mai negativi
+
+    private final int[] events;
+    private final int mask;
+    private final int cols;
+
+    private final AtomicLong head = new AtomicLong();   // Prossimo evento da leggere: lo scrive solo il consumatore
+    private final AtomicLong tail = new AtomicLong();   // Prossimo posto libero: lo scrive solo il produttore
+    private long cachedHead;   // Del produttore
+    private long cachedTail;   // Del consumatore
+    private volatile boolean overflowed;
+
+    public CarveEventRing(int cols) {
+        this(cols, DEFAULT_CAPACITY);
+    }
+
+    public CarveEventRing(int cols, int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("La capacita' deve essere una potenza di due: " + capacity);
+        }
+        this.events = new int[capacity];
+        this.mask = capacity - 1;
+        this.cols = cols;
+    }
+
+    @Override
+    public void cellCarved(int row, int col, int direction) {
+        offer(CarveLog.carvedEvent(row * cols + col, direction));
+    }
+
+    @Override
+    public void backtracked(int row, int col) {
+        offer(CarveLog.backtrackEvent(row * cols + col));
+    }
+
+    // Solo dal produttore; false se la coda e' piena (o lo e' stata)
+    public boolean offer(int event) {
+        if (overflowed) return false;
+        long t = tail.get();
+        if (t - cachedHead == events.length) {
+            cachedHead = head.get();
+            if (t - cachedHead == events.length) {
+                overflowed = true;
+                return false;
+            }
+        }
+        events[(int) t & mask] = event;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    // Solo dal consumatore; EMPTY se non ci sono eventi pronti
+    public int poll() {
+        long h = head.get();
+        if (h == cachedTail) {
+            cachedTail = tail.get();
+            if (h == cachedTail) return EMPTY;
+        }
+        int event = events[(int) h & mask];
+        head.lazySet(h + 1);
+        return event;
+    }
+
+    // true se il produttore ha trovato la coda piena: dopo gli eventi rimasti non ne arriveranno altri
+    public boolean isOverflowed() {
+        return overflowed;
+    }
+}
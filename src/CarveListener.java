@@ -0,0 +1,37 @@
+// Riceve le celle nell'ordine in cui l'algoritmo le scava.
+// E' il punto di aggancio per animazione, log e statistiche: l'algoritmo non sa chi lo osserva.
+public interface CarveListener {
+    // La cella e' stata raggiunta; se direction non e' Maze.NONE e' stato aperto il muro in quella direzione
+    void cellCarved(int row, int col, int direction) throws InterruptedException;
+
+    // L'algoritmo e' tornato indietro su una cella gia' scavata (solo per gli algoritmi con backtracking)
+    default void backtracked(int row, int col) throws InterruptedException {
+    }
+
+    // L'algoritmo lavora senza scavare (preparazione, passeggiate lunghe): chi osserva puo' annullarlo da qui
+    default void checkpoint() throws InterruptedException {
+    }
+
+    // Inoltra ogni evento a entrambi, nell'ordine
+    static CarveListener both(CarveListener first, CarveListener second) {
+        return new CarveListener() {
+            @Override
+            public void cellCarved(int row, int col, int direction) throws InterruptedException {
+                first.cellCarved(row, col, direction);
+                second.cellCarved(row, col, direction);
+            }
+
+            @Override
+            public void backtracked(int row, int col) throws InterruptedException {
+                first.backtracked(row, col);
+                second.backtracked(row, col);
+            }
+
+            @Override
+            public void checkpoint() throws InterruptedException {
+                first.checkpoint();
+                second.checkpoint();
+            }
+        };
+    }
+}
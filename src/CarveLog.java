@@ -0,0 +1,155 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Registro compatto degli eventi di scavo, un int per evento: (cella << 3) | codice.
+// Il codice e' la direzione del muro aperto (0-3), NO_WALL per una cella raggiunta senza aprire muri
+// oppure BACKTRACK per un ritorno su una cella gia' scavata.
+// Registrato durante la generazione, permette di riprodurla in seguito senza rieseguire l'algoritmo.
+public class CarveLog implements CarveListener {
+    static final int NO_WALL = 4, BACKTRACK = 5;
+    static final int MAX_CELLS = 1 << 28; // 3 bit per il codice, 29 per la cella
+    private static final int MAGIC = 0x4D415A4C; // "MAZL"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final int CHUNK_EVENTS = 1 << 16;
+
+    private final int rows, cols;
+    private int[] events;
+    private int size;
+
+    public CarveLog(int rows, int cols) {
+        if (rows < 1 || cols < 1 || (long) rows * cols > MAX_CELLS) {
+            throw new IllegalArgumentException("Dimensioni non valide per il registro: " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.events = new int[(int) Math.min(1024, 2L * rows * cols)];
+    }
+
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public int size() { return size; }
+    public int getEvent(int index) { return events[index]; }
+
+    public static int cellOf(int event) { return event >>> 3; }
+    public static int codeOf(int event) { return event & 7; }
+
+    static int carvedEvent(int cell, int direction) {
+        return (cell << 3) | (direction == Maze.NONE ? NO_WALL : direction);
+    }
+
+    static int backtrackEvent(int cell) {
+        return (cell << 3) | BACKTRACK;
+    }
+
+    @Override
+    public void cellCarved(int row, int col, int direction) {
+        append(carvedEvent(row * cols + col, direction));
+    }
+
+    @Override
+    public void backtracked(int row, int col) {
+        append(backtrackEvent(row * cols + col));
+    }
+
+    private void append(int event) {
+        if (size == events.length) {
+            events = Arrays.copyOf(events, Math.max(size + 1, (int) Math.min(Integer.MAX_VALUE - 8, 2L * size)));
+        }
+        events[size++] = event;
+    }
+
+    // Inoltra gli eventi a un altro listener, con le celle spostate di (rowOffset, colOffset)
+    public void replay(CarveListener listener, int rowOffset, int colOffset) throws InterruptedException {
+        for (int i = 0; i < size; i++) {
+            int cell = cellOf(events[i]), code = codeOf(events[i]);
+            int r = cell / cols + rowOffset, c = cell % cols + colOffset;
+            if (code == BACKTRACK) {
+                listener.backtracked(r, c);
+            } else {
+                listener.cellCarved(r, c, code == NO_WALL ? Maze.NONE : code);
+            }
+        }
+    }
+
+    // Applica allo storage gli eventi con indice in [from, to)
+    public void apply(MazeStorage storage, int from, int to) {
+        for (int i = from; i < to; i++) {
+            applyEvent(storage, events[i]);
+        }
+    }
+
+    // Un singolo evento, preso dal registro o da una CarveEventRing
+    static void applyEvent(MazeStorage storage, int event) {
+        int code = codeOf(event);
+        if (code == BACKTRACK) return;
+
+        int cell = cellOf(event);
+        int cols = storage.getCols();
+        int r = cell / cols, c = cell - r * cols;
+        storage.setVisited(r, c);
+        if (code != NO_WALL) Maze.removeWall(storage, r, c, code);
+    }
+
+    public void save(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_EVENTS * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(cols).putInt(size);
+            for (int i = 0; i < size; i++) {
+                if (!buffer.hasRemaining()) {
+                    flush(channel, buffer);
+                }
+                buffer.putInt(events[i]);
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    public static CarveLog load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_EVENTS * Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.limit(HEADER_SIZE);
+            fill(channel, buffer);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Formato del registro non riconosciuto: " + path);
+            }
+            int rows = buffer.getInt(), cols = buffer.getInt(), count = buffer.getInt();
+            if (count < 0 || channel.size() != HEADER_SIZE + (long) count * Integer.BYTES) {
+                throw new IOException("Registro troncato: " + path);
+            }
+
+            CarveLog log = new CarveLog(rows, cols);
+            log.events = new int[Math.max(1, count)];
+            while (log.size < count) {
+                buffer.clear();
+                buffer.limit(Math.min(buffer.capacity(), (count - log.size) * Integer.BYTES));
+                fill(channel, buffer);
+                while (buffer.hasRemaining()) {
+                    log.events[log.size++] = buffer.getInt();
+                }
+            }
+            return log;
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static void fill(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) throw new IOException("Fine del file inattesa");
+        }
+        buffer.flip();
+    }
+}
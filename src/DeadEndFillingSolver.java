@@ -0,0 +1,64 @@
+// Riempimento dei vicoli ciechi: da ogni cella con un solo passaggio libero si risale il corridoio
+// riempiendolo fino al primo incrocio. In un labirinto perfetto restano libere solo le celle del percorso,
+// che si legge poi camminando dall'entrata. Serve solo la bitmap delle celle riempite.
+public class DeadEndFillingSolver implements MazeSolver {
+    @Override
+    public String getName() {
+        return "Riempimento vicoli";
+    }
+
+    @Override
+    public int[] solve(MazeStorage storage) {
+        int rows = storage.getRows(), cols = storage.getCols();
+        int cells = rows * cols;
+        int start = 0, goal = cells - 1;
+        long[] filled = MazeSolvers.newBitmap(cells);
+
+        for (int cell = 0; cell < cells; cell++) {
+            int current = cell;
+            while (current != start && current != goal && !MazeSolvers.testBit(filled, current)) {
+                int exit = singleExit(storage, filled, current, cols);
+                if (exit == -2) break;                       // Incrocio o corridoio: non e' un vicolo cieco
+                MazeSolvers.setBit(filled, current);
+                if (exit == -1) break;                       // Cella isolata
+                current = MazeSolvers.step(current, exit, cols);
+            }
+        }
+
+        // Le celle rimaste formano il percorso: lo si segue senza tornare indietro
+        IntQueue path = new IntQueue();
+        int previous = -1, current = start;
+        while (true) {
+            path.add(current);
+            if (current == goal) break;
+            if (path.size() > cells) return new int[0];      // Ciclo: il labirinto non e' perfetto
+            int r = current / cols, c = current % cols;
+            int next = -1;
+            for (int dir = 0; dir < 4 && next < 0; dir++) {
+                if (!Maze.isOpen(storage, r, c, dir)) continue;
+                int candidate = MazeSolvers.step(current, dir, cols);
+                if (candidate != previous && !MazeSolvers.testBit(filled, candidate)) next = candidate;
+            }
+            if (next < 0) return new int[0];                 // Uscita non raggiungibile (o labirinto con cicli)
+            previous = current;
+            current = next;
+        }
+
+        int[] result = new int[path.size()];
+        for (int i = 0; i < result.length; i++) result[i] = path.remove();
+        return result;
+    }
+
+    // Unica direzione aperta verso una cella non riempita; -1 se non ce ne sono, -2 se sono piu' d'una
+    private static int singleExit(MazeStorage storage, long[] filled, int cell, int cols) {
+        int r = cell / cols, c = cell % cols;
+        int exit = -1;
+        for (int dir = 0; dir < 4; dir++) {
+            if (!Maze.isOpen(storage, r, c, dir)) continue;
+            if (MazeSolvers.testBit(filled, MazeSolvers.step(cell, dir, cols))) continue;
+            if (exit >= 0) return -2;
+            exit = dir;
+        }
+        return exit;
+    }
+}
@@ -0,0 +1,51 @@
+import java.util.SplittableRandom;
+
+// Recursive backtracker: DFS casuale con backtracking
+public class DepthFirstAlgorithm implements MazeAlgorithm {
+    @Override
+    public String getName() {
+        return "DFS";
+    }
+
+    @Override
+    public void generate(MazeStorage storage, SplittableRandom random, CarveListener listener) throws InterruptedException {
+        // Partenza dall'angolo in alto a sinistra
+        carve(storage, 0, 0, storage.getRows(), storage.getCols(), random, listener);
+    }
+
+    // DFS iterativa con stack esplicito: niente ricorsione, quindi nessun limite dovuto allo stack del thread.
+    // Scava solo il rettangolo [top, bottom) x [left, right), partendo dal suo angolo in alto a sinistra.
+    static void carve(MazeStorage storage, int top, int left, int bottom, int right,
+                      SplittableRandom random, CarveListener listener) throws InterruptedException {
+        // Lo stack memorizza solo la direzione da cui si e' arrivati (2 bit per livello)
+        long cells = (long) (bottom - top) * (right - left);
+        long[] stack = new long[(int) Math.max(1, (cells + 31) >>> 5)];
+        int depth = 0;
+
+        int r = top, c = left;
+        Maze.visit(storage, r, c, Maze.NONE, listener);
+
+        while (true) {
+            int dir = Maze.randomNeighbour(storage, r, c, top, left, bottom, right, false, random);
+            if (dir < 0) {
+                // Backtracking: si torna indietro nella direzione opposta a quella di arrivo
+                if (depth == 0) break;
+                depth--;
+                int back = (int) (stack[depth >>> 5] >>> ((depth & 31) << 1)) & 3;
+                r -= Maze.DR[back];
+                c -= Maze.DC[back];
+                if (listener != null) listener.backtracked(r, c);
+                continue;
+            }
+
+            int shift = (depth & 31) << 1;
+            stack[depth >>> 5] = (stack[depth >>> 5] & ~(3L << shift)) | ((long) dir << shift);
+            depth++;
+
+            Maze.removeWall(storage, r, c, dir);
+            r += Maze.DR[dir];
+            c += Maze.DC[dir];
+            Maze.visit(storage, r, c, Maze.opposite(dir), listener);
+        }
+    }
+}
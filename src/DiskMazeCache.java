@@ -0,0 +1,300 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Cache persistente di labirinti completi in una cartella condivisa fra esecuzioni e processi.
+// Ogni labirinto e' un file MazeFile il cui nome e' l'hash di (righe, colonne, algoritmo, seed, versione);
+// l'indice e' una tabella hash a indirizzamento aperto in un file mappato in memoria, quindi una ricerca
+// costa O(1) senza leggere la cartella. Oltre il limite in byte si scarta in ordine CLOCK.
+// Ogni accesso all'indice avviene sotto un lock esclusivo del file (fra processi) e di un monitor (fra thread).
+public class DiskMazeCache {
+    // Da incrementare quando un algoritmo cambia il labirinto prodotto da un seed: le voci vecchie non si trovano piu'
+    public static final int GENERATOR_VERSION = 2;
+    // Sotto questa soglia generare costa meno che leggere un file
+    public static final long MIN_CELLS = 1L << 18;
+
+    private static final int MAGIC = 0x4D415A58; // "MAZX"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SLOT_SIZE = 32;
+    private static final int SLOTS = 8192;                 // Potenza di due
+    private static final int MAX_ENTRIES = SLOTS * 3 / 4;  // Le sonde lineari restano corte
+    // Intestazione: magic, versione, slot (int), voci, byte, lancetta (long)
+    private static final int COUNT = 16, BYTES = 24, HAND = 32;
+    // Slot: hash (0 = vuoto), dimensione del file, bit di riferimento
+    private static final int HASH = 0, SIZE = 8, REFERENCED = 16;
+
+    // Un FileLock e' per processo: i thread dello stesso processo si escludono su un monitor per cartella
+    private static final Map<Path, Object> MONITORS = new ConcurrentHashMap<>();
+
+    private final Path directory;
+    private final long maxBytes;
+    private final FileChannel channel;
+    private final MappedByteBuffer index;
+    private final Object monitor;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public DiskMazeCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory.toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        this.monitor = MONITORS.computeIfAbsent(this.directory, path -> new Object());
+        Files.createDirectories(this.directory);
+
+        channel = FileChannel.open(this.directory.resolve("index"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            synchronized (monitor) {
+                FileLock lock = channel.lock();
+                try {
+                    index = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) SLOTS * SLOT_SIZE);
+                    index.order(ByteOrder.LITTLE_ENDIAN);
+                    if (index.getInt(0) == 0) {
+                        // File nuovo (la mappatura l'ha esteso a zeri): basta scrivere l'intestazione
+                        index.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, SLOTS);
+                    } else if (index.getInt(0) != MAGIC || index.getInt(4) != VERSION || index.getInt(8) != SLOTS) {
+                        throw new IOException("Indice della cache non riconosciuto: " + this.directory);
+                    }
+                } finally {
+                    lock.release();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Cache nella cartella indicata da -Dmaze.cache.dir (predefinita ~/.cache/maze-generator),
+    // limitata da -Dmaze.cache.mb (predefinito 1024); null se la cartella non si puo' usare
+    public static DiskMazeCache openDefault() {
+        Path directory = Paths.get(System.getProperty("maze.cache.dir",
+                Paths.get(System.getProperty("user.home"), ".cache", "maze-generator").toString()));
+        long megabytes = Long.getLong("maze.cache.mb", 1024);
+        try {
+            return new DiskMazeCache(directory, megabytes << 20);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Cache su disco non disponibile (" + directory + "): " + e.getMessage());
+            return null;
+        }
+    }
+
+    public static boolean isWorthCaching(int rows, int cols) {
+        return (long) rows * cols >= MIN_CELLS;
+    }
+
+    // Il labirinto salvato per questa combinazione, o null se non c'e'
+    public Maze get(int rows, int cols, MazeAlgorithm algorithm, long seed) throws IOException {
+        int algorithmId = MazeAlgorithms.all().indexOf(algorithm);
+        long hash = hash(rows, cols, algorithmId, seed);
+        boolean indexed;
+        synchronized (monitor) {
+            FileLock lock = channel.lock();
+            try {
+                int slot = find(hash);
+                indexed = slot >= 0;
+                if (indexed) index.putInt(slotOffset(slot) + REFERENCED, 1);
+            } finally {
+                lock.release();
+            }
+        }
+        if (indexed) {
+            try {
+                // Si legge fuori dal lock: il file e' immutabile, al piu' un altro processo lo cancella
+                MazeFile file = MazeFile.read(fileFor(hash));
+                Maze maze = file.getMaze();
+                if (maze.getRows() == rows && maze.getCols() == cols && file.getAlgorithmId() == algorithmId
+                        && file.getSeed() != null && file.getSeed() == seed) {
+                    hits.increment();
+                    return maze;
+                }
+            } catch (IOException | RuntimeException e) {
+                // Scartato da un altro processo nel frattempo, oppure rovinato
+            }
+            // Una voce che non porta a questo labirinto mancherebbe per sempre e occuperebbe spazio: si toglie
+            drop(hash);
+        }
+        misses.increment();
+        return null;
+    }
+
+    // Salva un labirinto completo; se non ci sta neanche svuotando la cache non si salva
+    public void put(Maze maze, MazeAlgorithm algorithm, long seed) throws IOException {
+        int algorithmId = MazeAlgorithms.all().indexOf(algorithm);
+        long hash = hash(maze.getRows(), maze.getCols(), algorithmId, seed);
+
+        // Il file si scrive fuori dal lock con un nome temporaneo e compare solo completo
+        Path temporary = Files.createTempFile(directory, "maze", ".tmp");
+        try {
+            MazeFile.write(temporary, maze, algorithmId, seed, false);
+            long size = Files.size(temporary);
+            if (size > maxBytes) return;
+
+            synchronized (monitor) {
+                FileLock lock = channel.lock();
+                try {
+                    int slot = find(hash);
+                    if (slot >= 0) {
+                        index.putInt(slotOffset(slot) + REFERENCED, 1);
+                        return;
+                    }
+                    while (index.getLong(COUNT) >= MAX_ENTRIES || index.getLong(BYTES) + size > maxBytes) {
+                        if (!evictOne()) return;
+                    }
+                    Files.move(temporary, fileFor(hash), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    insert(hash, size);
+                } finally {
+                    lock.release();
+                }
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    // Cerca nella cache e, se manca, genera e salva
+    public Maze getOrGenerate(int rows, int cols, MazeAlgorithm algorithm, long seed) throws IOException, InterruptedException {
+        Maze maze = get(rows, cols, algorithm, seed);
+        if (maze != null) return maze;
+        maze = new Maze(rows, cols);
+        maze.generate(algorithm, seed, null);
+        put(maze, algorithm, seed);
+        return maze;
+    }
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public Path getDirectory() { return directory; }
+
+    public long getBytes() throws IOException {
+        synchronized (monitor) {
+            FileLock lock = channel.lock();
+            try {
+                return index.getLong(BYTES);
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Slot della voce con questo hash, o -1; le sonde si fermano al primo slot vuoto
+    private int find(long hash) {
+        for (int slot = (int) hash & (SLOTS - 1); ; slot = (slot + 1) & (SLOTS - 1)) {
+            long stored = index.getLong(slotOffset(slot) + HASH);
+            if (stored == hash) return slot;
+            if (stored == 0) return -1;
+        }
+    }
+
+    private void insert(long hash, long size) {
+        int slot = (int) hash & (SLOTS - 1);
+        while (index.getLong(slotOffset(slot) + HASH) != 0) slot = (slot + 1) & (SLOTS - 1);
+        int offset = slotOffset(slot);
+        index.putLong(offset + SIZE, size).putInt(offset + REFERENCED, 1).putLong(offset + HASH, hash);
+        index.putLong(COUNT, index.getLong(COUNT) + 1);
+        index.putLong(BYTES, index.getLong(BYTES) + size);
+    }
+
+    // CLOCK: la lancetta toglie il bit di riferimento alle voci usate e scarta la prima che non l'ha
+    private boolean evictOne() throws IOException {
+        if (index.getLong(COUNT) == 0) return false;
+        int hand = (int) index.getLong(HAND);
+        for (int step = 0; step <= 2 * SLOTS; step++) {
+            int offset = slotOffset(hand);
+            long hash = index.getLong(offset + HASH);
+            if (hash != 0 && index.getInt(offset + REFERENCED) == 0) {
+                discard(hand);
+                index.putLong(HAND, hand);   // Nello slot liberato puo' essere scivolata un'altra voce
+                return true;
+            }
+            if (hash != 0) index.putInt(offset + REFERENCED, 0);
+            hand = (hand + 1) & (SLOTS - 1);
+        }
+        return false;
+    }
+
+    // Toglie la voce con questo hash, se c'e' ancora, insieme al suo file
+    private void drop(long hash) throws IOException {
+        synchronized (monitor) {
+            FileLock lock = channel.lock();
+            try {
+                int slot = find(hash);
+                if (slot >= 0) discard(slot);
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    private void discard(int slot) throws IOException {
+        int offset = slotOffset(slot);
+        Files.deleteIfExists(fileFor(index.getLong(offset + HASH)));
+        index.putLong(COUNT, index.getLong(COUNT) - 1);
+        index.putLong(BYTES, index.getLong(BYTES) - index.getLong(offset + SIZE));
+        remove(slot);
+    }
+
+    // Cancellazione con spostamento all'indietro: le voci successive della stessa sequenza di sonde
+    // risalgono, cosi' non servono marcatori di slot cancellato
+    private void remove(int slot) {
+        int hole = slot;
+        clear(hole);
+        for (int next = (hole + 1) & (SLOTS - 1); ; next = (next + 1) & (SLOTS - 1)) {
+            long hash = index.getLong(slotOffset(next) + HASH);
+            if (hash == 0) return;
+            int home = (int) hash & (SLOTS - 1);
+            boolean reachable = hole <= next ? home > hole && home <= next : home > hole || home <= next;
+            if (!reachable) {
+                int from = slotOffset(next), to = slotOffset(hole);
+                index.putLong(to + SIZE, index.getLong(from + SIZE))
+                     .putInt(to + REFERENCED, index.getInt(from + REFERENCED))
+                     .putLong(to + HASH, hash);
+                clear(next);
+                hole = next;
+            }
+        }
+    }
+
+    private void clear(int slot) {
+        int offset = slotOffset(slot);
+        index.putLong(offset + HASH, 0).putLong(offset + SIZE, 0).putInt(offset + REFERENCED, 0);
+    }
+
+    private Path fileFor(long hash) {
+        return directory.resolve(String.format("%016x.maze", hash));
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    // Finalizzatore di SplitMix64 applicato campo per campo; 0 e' riservato agli slot vuoti
+    private static long hash(int rows, int cols, int algorithmId, long seed) {
+        long h = mix(((long) rows << 32) | (cols & 0xFFFFFFFFL));
+        h = mix(h ^ (((long) algorithmId << 32) | GENERATOR_VERSION));
+        h = mix(h ^ seed);
+        return h == 0 ? 1 : h;
+    }
+
+    private static long mix(long z) {
+        z += 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,44 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.SplittableRandom;
+
+// Adatta EllerGenerator al contratto di MazeAlgorithm scrivendo le righe direttamente nello storage
+public class EllerAlgorithm implements MazeAlgorithm {
+    @Override
+    public String getName() {
+        return "Eller";
+    }
+
+    @Override
+    public void generate(MazeStorage storage, SplittableRandom random, CarveListener listener) throws InterruptedException {
+        RowSink into = EllerGenerator.into(storage);
+        RowSink sink = listener == null ? into : (row, east, south) -> {
+            into.acceptRow(row, east, south);
+            try {
+                notifyRow(storage, (int) row, listener);
+            } catch (InterruptedException e) {
+                throw new InterruptedIOException(); // RowSink puo' lanciare solo IOException
+            }
+        };
+
+        try {
+            new EllerGenerator(storage.getCols(), random.nextLong()).generate(storage.getRows(), sink);
+        } catch (InterruptedIOException e) {
+            throw new InterruptedException();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Non accade scrivendo in memoria
+        }
+    }
+
+    // Una notifica per ogni muro aperto verso celle gia' scavate (ovest e nord), oppure una sola senza muro
+    private static void notifyRow(MazeStorage storage, int r, CarveListener listener) throws InterruptedException {
+        for (int c = 0; c < storage.getCols(); c++) {
+            boolean west = c > 0 && storage.isEastOpen(r, c - 1);
+            boolean north = r > 0 && storage.isSouthOpen(r - 1, c);
+            if (west) listener.cellCarved(r, c, Maze.LEFT);
+            if (north) listener.cellCarved(r, c, Maze.UP);
+            if (!west && !north) listener.cellCarved(r, c, Maze.NONE);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Algoritmo di Eller: genera un labirinto perfetto una riga alla volta mantenendo solo O(cols) di stato.
+// Ogni riga completata viene consegnata a un RowSink, quindi l'altezza puo' essere arbitraria
+// mentre la memoria resta fissa.
+public class EllerGenerator {
+    private final int cols;
+    private final int wordsPerRow;
+    private final SplittableRandom random;
+
+    // Insiemi della riga corrente come union-find sulle colonne
+    private final int[] parent;
+    private final int[] nextParent;
+    private final int[] representative;
+    private final int[] seen;
+    private final int[] chosen;
+    private final boolean[] hasDown;
+    private final long[] eastOpen;
+    private final long[] southOpen;
+
+    public EllerGenerator(int cols, long seed) {
+        if (cols < 1) {
+            throw new IllegalArgumentException("Numero di colonne non valido: " + cols);
+        }
+        this.cols = cols;
+        this.wordsPerRow = (cols + 63) >>> 6;
+        this.random = new SplittableRandom(seed);
+        this.parent = new int[cols];
+        this.nextParent = new int[cols];
+        this.representative = new int[cols];
+        this.seen = new int[cols];
+        this.chosen = new int[cols];
+        this.hasDown = new boolean[cols];
+        this.eastOpen = new long[wordsPerRow];
+        this.southOpen = new long[wordsPerRow];
+    }
+
+    public int getCols() { return cols; }
+
+    public void generate(long rows, RowSink sink) throws IOException {
+        for (int c = 0; c < cols; c++) parent[c] = c; // Ogni cella della prima riga e' un insieme a se'
+
+        for (long row = 0; row < rows; row++) {
+            boolean last = row == rows - 1;
+            Arrays.fill(eastOpen, 0L);
+            Arrays.fill(southOpen, 0L);
+
+            // Unione orizzontale casuale di insiemi diversi (obbligatoria sull'ultima riga)
+            for (int c = 0; c + 1 < cols; c++) {
+                int a = find(c), b = find(c + 1);
+                if (a != b && (last || random.nextBoolean())) {
+                    parent[b] = a;
+                    eastOpen[c >>> 6] |= 1L << c;
+                }
+            }
+
+            if (!last) {
+                carveDown();
+            }
+            sink.acceptRow(row, eastOpen, southOpen);
+        }
+    }
+
+    // Ogni insieme scende almeno una volta; le celle che non scendono iniziano un nuovo insieme
+    private void carveDown() {
+        Arrays.fill(hasDown, false);
+        Arrays.fill(seen, 0);
+        for (int c = 0; c < cols; c++) {
+            if (random.nextBoolean()) {
+                southOpen[c >>> 6] |= 1L << c;
+                hasDown[find(c)] = true;
+            }
+        }
+
+        // Per gli insiemi rimasti senza discesa se ne sceglie una cella a caso (reservoir sampling)
+        for (int c = 0; c < cols; c++) {
+            int root = find(c);
+            if (!hasDown[root] && random.nextInt(++seen[root]) == 0) {
+                chosen[root] = c;
+            }
+        }
+        for (int c = 0; c < cols; c++) {
+            if (parent[c] == c && !hasDown[c]) {
+                southOpen[chosen[c] >>> 6] |= 1L << chosen[c];
+            }
+        }
+
+        // Riga successiva: le celle raggiunte dall'alto ereditano l'insieme, le altre sono nuove
+        Arrays.fill(representative, -1);
+        for (int c = 0; c < cols; c++) {
+            if ((southOpen[c >>> 6] & (1L << c)) != 0) {
+                int root = find(c);
+                if (representative[root] < 0) representative[root] = c;
+                nextParent[c] = representative[root];
+            } else {
+                nextParent[c] = c;
+            }
+        }
+        System.arraycopy(nextParent, 0, parent, 0, cols);
+    }
+
+    private int find(int c) {
+        while (parent[c] != c) {
+            parent[c] = parent[parent[c]]; // Compressione del cammino per dimezzamento
+            c = parent[c];
+        }
+        return c;
+    }
+
+    // Sink che scrive le righe in un MazeStorage (per righe entro la sua altezza)
+    public static RowSink into(MazeStorage storage) {
+        return (row, east, south) -> {
+            int r = (int) row;
+            for (int c = 0; c < storage.getCols(); c++) {
+                long bit = 1L << c;
+                if ((east[c >>> 6] & bit) != 0) storage.openEast(r, c);
+                if ((south[c >>> 6] & bit) != 0) storage.openSouth(r, c);
+                storage.setVisited(r, c);
+            }
+        };
+    }
+}
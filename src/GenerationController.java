@@ -0,0 +1,254 @@
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Esegue le generazioni dell'interfaccia una alla volta su un unico thread riusato e instrada i comandi
+// di riproduzione (pausa, ripresa, passo singolo, velocita') al MazeReplayer, anche dal vivo durante
+// la generazione, o, se non c'e' riproduzione, alla generazione stessa.
+// L'annullamento e' cooperativo: il listener della generazione guarda un flag ogni CHECK_INTERVAL celle
+// e la interrompe con InterruptedException; chi annulla non deve piu' mostrare il labirinto che stava generando.
+// Risoluzione ed esportazione vanno su un secondo thread, in coda, e si annullano insieme alla generazione.
+// Tutti i metodi pubblici si chiamano dall'EDT.
+public class GenerationController {
+    static final int CHECK_INTERVAL = 1024;
+
+    // Il lavoro da svolgere sul thread di generazione
+    public interface Job {
+        void run(Task task) throws InterruptedException;
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "generazione");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Non tocca mai la cache su disco, quindi annullando si puo' anche interrompere il thread
+    private final ExecutorService background = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "lavori");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Set<Task> backgroundTasks = ConcurrentHashMap.newKeySet();
+
+    private Task current;
+    private MazeReplayer replayer;
+    private boolean paused;
+    private int speed = 1;
+
+    // Annulla la generazione in corso e accoda la nuova, che parte appena la precedente si e' fermata.
+    // onPause si chiama dal thread di generazione ogni volta che si ferma in pausa
+    public Task submit(Job job, Runnable onPause) {
+        cancel();
+        paused = false;
+        Task task = new Task(onPause);
+        current = task;
+        executor.execute(() -> {
+            try {
+                job.run(task);
+            } catch (InterruptedException e) {
+                // Annullata: chi l'ha annullata ha gia' rimesso in ordine l'interfaccia
+            } finally {
+                task.finish();
+            }
+        });
+        return task;
+    }
+
+    // Un lavoro sul labirinto mostrato (risoluzione, esportazione): parte dopo quelli gia' in coda.
+    // Annullandolo si interrompe anche il thread, cosi' una scrittura su file si ferma subito
+    public Task submitBackground(Job job) {
+        Task task = new Task(null);
+        backgroundTasks.add(task);
+        background.execute(() -> {
+            task.attach(Thread.currentThread());
+            try {
+                task.checkCancelled();
+                job.run(task);
+            } catch (InterruptedException e) {
+                // Annullato: chi l'ha annullato ha gia' rimesso in ordine l'interfaccia
+            } finally {
+                task.detach();
+                task.finish();
+                backgroundTasks.remove(task);
+            }
+        });
+        return task;
+    }
+
+    // true se c'era una generazione non ancora finita: il suo labirinto puo' essere ancora modificato
+    // per al massimo CHECK_INTERVAL celle, quindi non va riusato. Annulla anche i lavori in coda
+    public boolean cancel() {
+        for (Task task : backgroundTasks) task.cancel();
+        Task task = current;
+        current = null;
+        paused = false;
+        if (task == null || task.isFinished()) return false;
+        task.cancel();
+        return true;
+    }
+
+    public boolean isGenerating() {
+        return current != null && !current.isFinished();
+    }
+
+    // La riproduzione da comandare: riparte dalla sua posizione (dall'inizio se e' alla fine), se non si e' in pausa
+    public void startReplay(MazeReplayer replayer) {
+        this.replayer = replayer;
+        if (replayer == null) return;
+        replayer.setSpeed(speed);
+        if (!paused) replayer.play();
+    }
+
+    public boolean isPlaying() {
+        if (replayer != null) return replayer.isPlaying();
+        return isGenerating() && !paused;
+    }
+
+    public boolean isPaused() { return paused; }
+
+    // Con una riproduzione dal vivo si ferma solo l'animazione: la generazione continua senza aspettarla
+    public void pause() {
+        paused = true;
+        if (replayer != null) {
+            replayer.pause();
+        } else if (isGenerating()) {
+            current.setPaused(true);
+        }
+    }
+
+    public void play() {
+        paused = false;
+        if (replayer != null) {
+            replayer.play();
+        } else if (isGenerating()) {
+            current.setPaused(false);
+        }
+    }
+
+    // Una sola cella, poi resta in pausa
+    public void step() {
+        paused = true;
+        if (replayer != null) {
+            replayer.step();
+        } else if (isGenerating()) {
+            current.setPaused(true);
+            current.step();
+        }
+    }
+
+    // La velocita' vale per la riproduzione (la generazione va sempre al massimo) e resta fra una generazione e l'altra
+    public void fastForward() {
+        paused = false;
+        if (replayer == null) return;
+        replayer.fastForward();
+        speed = replayer.getSpeed();
+    }
+
+    public void rewind() {
+        paused = false;
+        if (replayer != null) replayer.rewind();
+    }
+
+    public int getSpeed() { return speed; }
+
+    // Celle per frame, fino a MazeReplayer.INSTANT
+    public void setSpeed(int speed) {
+        this.speed = Math.max(1, speed);
+        if (replayer != null) replayer.setSpeed(this.speed);
+    }
+
+    // Una generazione sottomessa: stato condiviso fra l'EDT e il thread di generazione
+    public static final class Task {
+        private final Runnable onPause;
+        private volatile boolean cancelled;
+        private volatile boolean finished;
+        private volatile long carved;   // Aggiornato a ogni punto di controllo
+        private boolean paused;
+        private int steps;
+        private Thread worker;          // Solo per i lavori, che si possono interrompere
+
+        private Task(Runnable onPause) {
+            this.onPause = onPause;
+        }
+
+        public boolean isCancelled() { return cancelled; }
+        public boolean isFinished() { return finished; }
+        // Celle scavate finora, con al piu' CHECK_INTERVAL eventi di ritardo (0 se l'algoritmo non usa il listener)
+        public long getCarved() { return carved; }
+
+        // Involucro del listener della generazione con i punti di controllo per pausa e annullamento
+        public CarveListener listener(CarveListener delegate) {
+            return new CarveListener() {
+                private int countdown = CHECK_INTERVAL;
+                private long cells;
+
+                @Override
+                public void cellCarved(int row, int col, int direction) throws InterruptedException {
+                    cells++;
+                    if (--countdown == 0) countdown = Task.this.checkpoint(cells);
+                    if (delegate != null) delegate.cellCarved(row, col, direction);
+                }
+
+                @Override
+                public void backtracked(int row, int col) throws InterruptedException {
+                    if (--countdown == 0) countdown = Task.this.checkpoint(cells);
+                    if (delegate != null) delegate.backtracked(row, col);
+                }
+
+                @Override
+                public void checkpoint() throws InterruptedException {
+                    checkCancelled();
+                    if (delegate != null) delegate.checkpoint();
+                }
+            };
+        }
+
+        // Per i lavori che non passano da un listener (cache su disco, salvataggio)
+        public void checkCancelled() throws InterruptedException {
+            if (cancelled) throw new InterruptedException("Generazione annullata");
+        }
+
+        // Restituisce fra quanti eventi ricontrollare: uno solo se si avanza a passi
+        private synchronized int checkpoint(long cells) throws InterruptedException {
+            carved = cells;
+            if (paused && steps == 0 && !cancelled && onPause != null) onPause.run();
+            while (paused && steps == 0 && !cancelled) wait();
+            checkCancelled();
+            if (!paused) return CHECK_INTERVAL;
+            steps--;
+            return 1;
+        }
+
+        private synchronized void setPaused(boolean paused) {
+            this.paused = paused;
+            notifyAll();
+        }
+
+        private synchronized void step() {
+            steps++;
+            notifyAll();
+        }
+
+        private synchronized void cancel() {
+            cancelled = true;
+            if (worker != null) worker.interrupt();
+            notifyAll();
+        }
+
+        private synchronized void attach(Thread thread) {
+            worker = thread;
+        }
+
+        // Sotto lo stesso lock di cancel: nessuna interruzione arriva al lavoro successivo
+        private synchronized void detach() {
+            worker = null;
+            Thread.interrupted();
+        }
+
+        private void finish() {
+            finished = true;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+// Piani di bit su un unico long[] nello heap: circa 3 bit per cella
+public class HeapMazeStorage extends MazeStorage {
+    private final long[] words;
+
+    public HeapMazeStorage(int rows, int cols) {
+        super(rows, cols);
+        this.words = new long[Math.toIntExact(PLANES * wordsPerPlane)];
+    }
+
+    // true se i tre piani stanno in un solo long[]: il limite delle dimensioni per i labirinti su heap
+    static boolean fits(int rows, int cols) {
+        return rows >= 1 && cols >= 1 && (long) rows * cols <= Integer.MAX_VALUE
+            && PLANES * (long) rows * ((cols + 63) >>> 6) <= Integer.MAX_VALUE;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(words, 0L);
+    }
+
+    @Override
+    void getWords(long from, LongBuffer dst) {
+        dst.put(words, (int) from, dst.remaining());
+    }
+
+    @Override
+    void setWords(long from, LongBuffer src) {
+        src.get(words, (int) from, src.remaining());
+    }
+
+    @Override
+    protected long getWord(long index) {
+        return words[(int) index];
+    }
+
+    @Override
+    protected void setWord(long index, long value) {
+        words[(int) index] = value;
+    }
+}
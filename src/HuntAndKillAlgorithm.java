@@ -0,0 +1,58 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Hunt-and-kill: passeggiata casuale sulle celle non visitate; quando si resta bloccati si "caccia"
+// riga per riga la prima cella non visitata adiacente al labirinto e si riparte da li'.
+// Un contatore per riga permette di saltare le righe gia' completate.
+public class HuntAndKillAlgorithm implements MazeAlgorithm {
+    @Override
+    public String getName() {
+        return "Hunt-and-Kill";
+    }
+
+    @Override
+    public void generate(MazeStorage storage, SplittableRandom random, CarveListener listener) throws InterruptedException {
+        int rows = storage.getRows(), cols = storage.getCols();
+        int[] unvisited = new int[rows];
+        Arrays.fill(unvisited, cols);
+        int scanRow = 0;
+
+        int r = 0, c = 0;
+        Maze.visit(storage, r, c, Maze.NONE, listener);
+        unvisited[r]--;
+
+        while (true) {
+            int dir = Maze.randomNeighbour(storage, r, c, 0, 0, rows, cols, false, random);
+            if (dir >= 0) {
+                Maze.removeWall(storage, r, c, dir);
+                r += Maze.DR[dir];
+                c += Maze.DC[dir];
+                Maze.visit(storage, r, c, Maze.opposite(dir), listener);
+                unvisited[r]--;
+                continue;
+            }
+
+            // Caccia: le righe prima di scanRow sono gia' tutte visitate
+            while (scanRow < rows && unvisited[scanRow] == 0) scanRow++;
+            if (scanRow == rows) break;
+
+            boolean found = false;
+            for (int hr = scanRow; hr < rows && !found; hr++) {
+                if (unvisited[hr] == 0) continue;
+                for (int hc = 0; hc < cols; hc++) {
+                    if (storage.isVisited(hr, hc)) continue;
+                    int back = Maze.randomNeighbour(storage, hr, hc, 0, 0, rows, cols, true, random);
+                    if (back < 0) continue;
+
+                    Maze.removeWall(storage, hr, hc, back);
+                    r = hr;
+                    c = hc;
+                    Maze.visit(storage, r, c, back, listener);
+                    unvisited[r]--;
+                    found = true;
+                    break;
+                }
+            }
+        }
+    }
+}
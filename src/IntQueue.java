@@ -0,0 +1,48 @@
+import java.util.Arrays;
+
+// Coda FIFO di int su array circolare che raddoppia quando e' piena: nessun boxing.
+// Nelle ricerche in ampiezza contiene solo la frontiera, molto piu' piccola del labirinto.
+public class IntQueue {
+    private int[] items;
+    private int head, size;
+
+    public IntQueue() {
+        this(1024);
+    }
+
+    public IntQueue(int capacity) {
+        items = new int[Math.max(2, Integer.highestOneBit(capacity - 1) << 1)];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void add(int value) {
+        if (size == items.length) grow();
+        items[(head + size) & (items.length - 1)] = value;
+        size++;
+    }
+
+    public int remove() {
+        int value = items[head];
+        head = (head + 1) & (items.length - 1);
+        size--;
+        return value;
+    }
+
+    public void clear() {
+        head = size = 0;
+    }
+
+    private void grow() {
+        int[] larger = Arrays.copyOf(items, items.length * 2);
+        // Gli elementi dopo il giro dell'array vanno spostati in coda
+        System.arraycopy(items, 0, larger, items.length, head);
+        items = larger;
+    }
+}
@@ -0,0 +1,88 @@
+import java.util.SplittableRandom;
+
+// Kruskal casuale: si mescolano tutti i muri interni e si abbatte ogni muro che separa due insiemi diversi.
+// Archi e union-find sono array di int: nessuna allocazione per cella.
+public class KruskalAlgorithm implements MazeAlgorithm {
+    // Preparazione di archi e permutazione: un punto di controllo per il listener ogni 64k archi
+    private static final int CHECKPOINT_MASK = (1 << 16) - 1;
+
+    @Override
+    public String getName() {
+        return "Kruskal";
+    }
+
+    @Override
+    public void generate(MazeStorage storage, SplittableRandom random, CarveListener listener) throws InterruptedException {
+        int rows = storage.getRows(), cols = storage.getCols();
+        int cells = rows * cols;
+        if (cells > Integer.MAX_VALUE / 2) {
+            throw new IllegalArgumentException("Troppe celle per Kruskal: " + cells);
+        }
+
+        // Arco = cella * 2 + 0 (muro est) oppure + 1 (muro sud)
+        int[] edges = new int[rows * (cols - 1) + (rows - 1) * cols];
+        int count = 0;
+        for (int r = 0; r < rows; r++) {
+            if (listener != null) listener.checkpoint();
+            for (int c = 0; c < cols; c++) {
+                int cell = r * cols + c;
+                if (c + 1 < cols) edges[count++] = cell << 1;
+                if (r + 1 < rows) edges[count++] = (cell << 1) | 1;
+            }
+        }
+        for (int i = count - 1; i > 0; i--) { // Fisher-Yates
+            if ((i & CHECKPOINT_MASK) == 0 && listener != null) listener.checkpoint();
+            int j = random.nextInt(i + 1);
+            int tmp = edges[i];
+            edges[i] = edges[j];
+            edges[j] = tmp;
+        }
+
+        int[] parent = new int[cells];
+        for (int i = 0; i < cells; i++) parent[i] = i;
+        byte[] rank = new byte[cells];
+
+        if (cells == 1) Maze.visit(storage, 0, 0, Maze.NONE, listener);
+
+        int remaining = cells - 1;
+        for (int i = 0; i < count && remaining > 0; i++) {
+            int cell = edges[i] >>> 1;
+            boolean south = (edges[i] & 1) != 0;
+            int other = south ? cell + cols : cell + 1;
+
+            int a = find(parent, cell), b = find(parent, other);
+            if (a == b) continue;
+            if (rank[a] < rank[b]) {
+                parent[a] = b;
+            } else {
+                parent[b] = a;
+                if (rank[a] == rank[b]) rank[a]++;
+            }
+            remaining--;
+
+            int r = cell / cols, c = cell - r * cols;
+            int or = other / cols, oc = other - or * cols;
+            int dir = south ? Maze.DOWN : Maze.RIGHT;
+            if (south) storage.openSouth(r, c); else storage.openEast(r, c);
+
+            // Il muro aperto viene notificato una sola volta, sulla cella nuova se ce n'e' una
+            boolean newCell = !storage.isVisited(r, c), newOther = !storage.isVisited(or, oc);
+            if (newCell && newOther) {
+                Maze.visit(storage, r, c, Maze.NONE, listener);
+                Maze.visit(storage, or, oc, Maze.opposite(dir), listener);
+            } else if (newOther) {
+                Maze.visit(storage, or, oc, Maze.opposite(dir), listener);
+            } else {
+                Maze.visit(storage, r, c, dir, listener);
+            }
+        }
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]]; // Compressione del cammino per dimezzamento
+            i = parent[i];
+        }
+        return i;
+    }
+}
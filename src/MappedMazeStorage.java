@@ -0,0 +1,121 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Piani di bit in un file mappato in memoria: il labirinto (e la bitmap delle celle visitate)
+// vive fuori dallo heap e un labirinto finito si riapre senza rigenerarlo ne' deserializzarlo.
+// Il file e' mappato a segmenti perche' un singolo MappedByteBuffer non supera i 2 GB.
+public class MappedMazeStorage extends MazeStorage implements AutoCloseable {
+    private static final int MAGIC = 0x4D415A4D; // "MAZM"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int SEGMENT_SHIFT = 30; // Segmenti da 1 GB, multipli di 8 byte
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+
+    private MappedMazeStorage(FileChannel channel, int rows, int cols) throws IOException {
+        super(rows, cols);
+        this.channel = channel;
+
+        long dataSize = PLANES * wordsPerPlane * Long.BYTES;
+        int count = (int) ((dataSize + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+        this.segments = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long offset = (long) i << SEGMENT_SHIFT;
+            long size = Math.min(SEGMENT_SIZE, dataSize - offset);
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + offset, size);
+            segments[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    // Crea (o sovrascrive) un file con un labirinto vuoto: tutti i muri, nessuna cella visitata
+    public static MappedMazeStorage create(Path path, int rows, int cols) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(cols);
+            header.force();
+            // Il file viene esteso dalla mappatura e i byte nuovi sono gia' a zero
+            return new MappedMazeStorage(channel, rows, cols);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Riapre un labirinto salvato in precedenza
+    public static MappedMazeStorage open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("File di labirinto troppo corto: " + path);
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Formato del file non riconosciuto: " + path);
+            }
+            int rows = header.getInt();
+            int cols = header.getInt();
+            if (rows < 1 || cols < 1 || (long) rows * cols > Integer.MAX_VALUE) {
+                throw new IOException("Dimensioni non valide nel file: " + rows + "x" + cols + ", " + path);
+            }
+            // Da controllare prima di mappare: la mappatura READ_WRITE allungherebbe un file troncato con zeri
+            long expected = fileSize(rows, cols);
+            if (channel.size() != expected) {
+                throw new IOException("File di labirinto di " + channel.size() + " byte invece di " + expected + ": " + path);
+            }
+            return new MappedMazeStorage(channel, rows, cols);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Intestazione piu' i tre piani, ogni riga arrotondata a un numero intero di long
+    private static long fileSize(int rows, int cols) {
+        return HEADER_SIZE + PLANES * (long) rows * ((cols + 63) >>> 6) * Long.BYTES;
+    }
+
+    @Override
+    public void clear() {
+        for (MappedByteBuffer segment : segments) {
+            for (int i = 0; i < segment.limit(); i += Long.BYTES) {
+                segment.putLong(i, 0L);
+            }
+        }
+    }
+
+    // Scrive su disco le pagine modificate
+    public void force() {
+        for (MappedByteBuffer segment : segments) {
+            segment.force();
+        }
+    }
+
+    // Le mappature vengono rilasciate dal GC: qui si sincronizza il file e si chiude il canale
+    @Override
+    public void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    @Override
+    protected long getWord(long index) {
+        long offset = index << 3;
+        return segments[(int) (offset >>> SEGMENT_SHIFT)].getLong((int) (offset & (SEGMENT_SIZE - 1)));
+    }
+
+    @Override
+    protected void setWord(long index, long value) {
+        long offset = index << 3;
+        segments[(int) (offset >>> SEGMENT_SHIFT)].putLong((int) (offset & (SEGMENT_SIZE - 1)), value);
+    }
+}
@@ -1,73 +1,139 @@
 import java.util.*;
 
 public class Maze {
+    // Direzioni: su, giu', sinistra, destra
+    static final int UP = 0, DOWN = 1, LEFT = 2, RIGHT = 3;
+    static final int NONE = -1;
+    static final int[] DR = {-1, 1, 0, 0};
+    static final int[] DC = {0, 0, -1, 1};
+
     private final int rows, cols;
-    private final Cell[][] grid;
+    private final MazeStorage storage;
+    private final SplittableRandom random = new SplittableRandom();
 
     public Maze(int rows, int cols) {
-        this.rows = rows;
-        this.cols = cols;
-        this.grid = new Cell[rows][cols];
-        for (int r = 0; r < rows; r++)
-            for (int c = 0; c < cols; c++)
-                grid[r][c] = new Cell(r, c);
+        this(new HeapMazeStorage(rows, cols));
+    }
+
+    public Maze(MazeStorage storage) {
+        this.rows = storage.getRows();
+        this.cols = storage.getCols();
+        this.storage = storage;
     }
 
     public int getRows() { return rows; }
     public int getCols() { return cols; }
-    public Cell getCell(int r, int c) { return grid[r][c]; }
+    public MazeStorage getStorage() { return storage; }
+
+    // I muri nord e ovest sono quelli sud ed est della cella adiacente
+    public boolean hasTopWall(int r, int c) { return r == 0 || !storage.isSouthOpen(r - 1, c); }
+    public boolean hasBottomWall(int r, int c) { return !storage.isSouthOpen(r, c); }
+    public boolean hasLeftWall(int r, int c) { return c == 0 || !storage.isEastOpen(r, c - 1); }
+    public boolean hasRightWall(int r, int c) { return !storage.isEastOpen(r, c); }
+    public boolean isVisited(int r, int c) { return storage.isVisited(r, c); }
+
+    // Generazione headless: nessuna animazione, nessuna pausa
+    public void generate() {
+        try {
+            generate(null);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Non accade senza listener
+        }
+    }
+
+    public void generate(CarveListener listener) throws InterruptedException {
+        generate(MazeAlgorithms.DEPTH_FIRST, listener);
+    }
 
-    public void generate(MazePanel panel) throws InterruptedException {
-        boolean[][] visited = new boolean[rows][cols];
-        dfs(0, 0, visited, panel); // Partenza dall’angolo in alto a sinistra
+    // Senza seed se ne estrae uno nuovo ad ogni chiamata
+    public void generate(MazeAlgorithm algorithm, CarveListener listener) throws InterruptedException {
+        generate(algorithm, random.nextLong(), listener);
     }
 
-    private void dfs(int r, int c, boolean[][] visited, MazePanel panel) throws InterruptedException {
-        visited[r][c] = true;
-        Cell current = grid[r][c];
-        current.setVisited(true);
-        panel.repaint();
-        Thread.sleep(30); // Velocità animazione
-
-        List<int[]> directions = new ArrayList<>(Arrays.asList(
-            new int[]{-1, 0}, // su
-            new int[]{1, 0},  // giù
-            new int[]{0, -1}, // sinistra
-            new int[]{0, 1}   // destra
-        ));
-        Collections.shuffle(directions); // Rende la DFS casuale per far si' che non venga sempre generato lo stesso labirinto
-
-        for (int[] dir : directions) {
-            int nr = r + dir[0], nc = c + dir[1];
-            if (isInBounds(nr, nc) && !visited[nr][nc]) {
-                removeWall(current, grid[nr][nc]);
-                dfs(nr, nc, visited, panel);
+    // A parita' di algoritmo, dimensioni e seed il labirinto (e l'ordine di scavo) e' sempre lo stesso
+    public void generate(MazeAlgorithm algorithm, long seed, CarveListener listener) throws InterruptedException {
+        MazeEvents.Generation event = new MazeEvents.Generation();
+        event.begin();
+        try {
+            algorithm.generate(storage, new SplittableRandom(seed), MazeEvents.withProgress(listener, rows, cols));
+        } finally {
+            if (event.shouldCommit()) {
+                event.rows = rows;
+                event.cols = cols;
+                event.algorithm = algorithm.getName();
+                event.seed = seed;
+                event.commit();
             }
         }
     }
-    
+
     public void reset() {
-        for (Cell[] row : grid) {
-            for (Cell cell : row) {
-                cell.visited = false;
-                cell.top = true;
-                cell.bottom = true;
-                cell.left = true;
-                cell.right = true;
-            }
+        MazeEvents.Reset event = new MazeEvents.Reset();
+        event.begin();
+        storage.clear();
+        if (event.shouldCommit()) {
+            event.rows = rows;
+            event.cols = cols;
+            event.bytes = MazeStorage.PLANES * storage.wordsPerPlane * Long.BYTES;
+            event.commit();
         }
     }
 
-    private void removeWall(Cell a, Cell b) {
-        int dr = b.row - a.row;
-        int dc = b.col - a.col;
-        if (dr == 1) { a.bottom = false; b.top = false; }
-        if (dr == -1) { a.top = false; b.bottom = false; }
-        if (dc == 1) { a.right = false; b.left = false; }
-        if (dc == -1) { a.left = false; b.right = false; }
+    // Segna la cella come scavata e la notifica al listener, con la direzione del muro appena aperto
+    static void visit(MazeStorage storage, int r, int c, int direction, CarveListener listener) throws InterruptedException {
+        storage.setVisited(r, c);
+        if (listener != null) {
+            listener.cellCarved(r, c, direction);
+        }
     }
 
-    private boolean isInBounds(int r, int c) {
-        return r >= 0 && c >= 0 && r < rows && c < cols;
+    // Su/giu' e sinistra/destra differiscono solo nell'ultimo bit
+    static int opposite(int dir) {
+        return dir ^ 1;
+    }
+
+    // Apre il muro tra (r, c) e la cella adiacente nella direzione indicata
+    static void removeWall(MazeStorage storage, int r, int c, int dir) {
+        switch (dir) {
+            case UP: storage.openSouth(r - 1, c); break;
+            case DOWN: storage.openSouth(r, c); break;
+            case LEFT: storage.openEast(r, c - 1); break;
+            case RIGHT: storage.openEast(r, c); break;
+        }
+    }
+
+    // true se tra (r, c) e la cella adiacente nella direzione indicata c'e' un passaggio
+    static boolean isOpen(MazeStorage storage, int r, int c, int dir) {
+        switch (dir) {
+            case UP: return r > 0 && storage.isSouthOpen(r - 1, c);
+            case DOWN: return r + 1 < storage.getRows() && storage.isSouthOpen(r, c);
+            case LEFT: return c > 0 && storage.isEastOpen(r, c - 1);
+            case RIGHT: return c + 1 < storage.getCols() && storage.isEastOpen(r, c);
+            default: return false;
+        }
+    }
+
+    // Sceglie a caso, senza allocare liste, una direzione verso un vicino nel rettangolo indicato
+    // che sia visitato o meno secondo 'visited'; -1 se non ce ne sono.
+    // I candidati sono una maschera di 4 bit: con un solo candidato non serve nemmeno il numero casuale
+    static int randomNeighbour(MazeStorage storage, int r, int c, int top, int left, int bottom, int right,
+                               boolean visited, SplittableRandom random) {
+        int candidates = 0;
+        for (int dir = 0; dir < 4; dir++) {
+            int nr = r + DR[dir], nc = c + DC[dir];
+            if (nr >= top && nc >= left && nr < bottom && nc < right && storage.isVisited(nr, nc) == visited) {
+                candidates |= 1 << dir;
+            }
+        }
+        switch (Integer.bitCount(candidates)) {
+            case 0: return -1;
+            case 1: return Integer.numberOfTrailingZeros(candidates);
+            default:
+                // Si scartano a caso dai bit bassi tanti candidati quanti ne indica il numero estratto
+                for (int skip = random.nextInt(Integer.bitCount(candidates)); skip > 0; skip--) {
+                    candidates &= candidates - 1;
+                }
+                return Integer.numberOfTrailingZeros(candidates);
+        }
     }
 }
@@ -0,0 +1,10 @@
+import java.util.SplittableRandom;
+
+// Algoritmo di generazione intercambiabile. Lavora direttamente sui bit di MazeStorage,
+// partendo da un labirinto con tutti i muri, e segnala al listener (se presente) ogni cella scavata.
+public interface MazeAlgorithm {
+    // Nome mostrato nell'interfaccia e nei log
+    String getName();
+
+    void generate(MazeStorage storage, SplittableRandom random, CarveListener listener) throws InterruptedException;
+}
@@ -0,0 +1,31 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Elenco degli algoritmi disponibili; l'indice nell'elenco identifica l'algoritmo
+public final class MazeAlgorithms {
+    public static final MazeAlgorithm DEPTH_FIRST = new DepthFirstAlgorithm();
+
+    private static final List<MazeAlgorithm> ALL = Collections.unmodifiableList(Arrays.asList(
+        DEPTH_FIRST,
+        new KruskalAlgorithm(),
+        new PrimAlgorithm(),
+        new WilsonAlgorithm(),
+        new HuntAndKillAlgorithm(),
+        new EllerAlgorithm(),
+        new ParallelMazeGenerator()
+    ));
+
+    private MazeAlgorithms() {}
+
+    public static List<MazeAlgorithm> all() {
+        return ALL;
+    }
+
+    public static MazeAlgorithm byName(String name) {
+        for (MazeAlgorithm algorithm : ALL) {
+            if (algorithm.getName().equalsIgnoreCase(name)) return algorithm;
+        }
+        throw new IllegalArgumentException("Algoritmo sconosciuto: " + name);
+    }
+}
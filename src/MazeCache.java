@@ -0,0 +1,169 @@
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+// Cache LRU di labirinti completi, limitata in byte e indicizzata da (righe, colonne, seed, algoritmo):
+// la generazione e' deterministica, quindi un labirinto gia' fatto si puo' riusare per sempre.
+// Richieste identiche concorrenti aspettano la stessa generazione invece di ripeterla.
+// Con una DiskMazeCache, i labirinti mancanti si cercano su disco prima di generarli e quelli generati vi restano.
+// I labirinti in cache sono condivisi: chi li riceve li deve solo leggere.
+public class MazeCache {
+    private final long maxBytes;
+    private final DiskMazeCache disk;   // null se non c'e' la cache su disco
+    private long bytes;
+    private final Map<Key, Maze> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final ConcurrentHashMap<Key, CompletableFuture<Maze>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LatencyHistogram generation = new LatencyHistogram();
+
+    public MazeCache(long maxBytes) {
+        this(maxBytes, null);
+    }
+
+    public MazeCache(long maxBytes, DiskMazeCache disk) {
+        this.maxBytes = maxBytes;
+        this.disk = disk;
+    }
+
+    public Maze get(int rows, int cols, long seed, MazeAlgorithm algorithm) throws InterruptedException {
+        Key key = new Key(rows, cols, seed, MazeAlgorithms.all().indexOf(algorithm));
+        Maze maze = lookup(key);
+        if (maze != null) {
+            hits.increment();
+            return maze;
+        }
+
+        CompletableFuture<Maze> pending = new CompletableFuture<>();
+        CompletableFuture<Maze> running = inFlight.putIfAbsent(key, pending);
+        if (running != null) {
+            coalesced.increment();
+            return await(running);
+        }
+        try {
+            // Un'altra richiesta puo' aver finito fra la ricerca e la prenotazione
+            maze = lookup(key);
+            if (maze != null) {
+                hits.increment();
+            } else if ((maze = loadFromDisk(rows, cols, seed, algorithm)) != null) {
+                diskHits.increment();
+                store(key, maze);
+            } else {
+                misses.increment();
+                long start = System.nanoTime();
+                maze = new Maze(rows, cols);
+                maze.generate(algorithm, seed, null);
+                generation.record(System.nanoTime() - start);
+                store(key, maze);
+                saveToDisk(maze, seed, algorithm);
+            }
+            pending.complete(maze);
+            return maze;
+        } catch (InterruptedException | RuntimeException | Error e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, pending);
+        }
+    }
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getCoalesced() { return coalesced.sum(); }
+    public long getDiskHits() { return diskHits.sum(); }
+    public LatencyHistogram getGenerationTimes() { return generation; }
+
+    // Le richieste unite a una generazione in corso non la pagano: contano come successi, come quelle lette da disco
+    public double getHitRatio() {
+        long served = hits.sum() + coalesced.sum() + diskHits.sum();
+        long total = served + misses.sum();
+        return total == 0 ? 0 : (double) served / total;
+    }
+
+    public synchronized int size() { return entries.size(); }
+    public synchronized long getBytes() { return bytes; }
+    public long getMaxBytes() { return maxBytes; }
+
+    // Un errore della cache su disco non deve far fallire la richiesta: si genera come se mancasse
+    private Maze loadFromDisk(int rows, int cols, long seed, MazeAlgorithm algorithm) {
+        if (disk == null || !DiskMazeCache.isWorthCaching(rows, cols)) return null;
+        try {
+            return disk.get(rows, cols, algorithm, seed);
+        } catch (IOException e) {
+            System.err.println("Lettura dalla cache su disco non riuscita: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void saveToDisk(Maze maze, long seed, MazeAlgorithm algorithm) {
+        if (disk == null || !DiskMazeCache.isWorthCaching(maze.getRows(), maze.getCols())) return;
+        try {
+            disk.put(maze, algorithm, seed);
+        } catch (IOException e) {
+            System.err.println("Scrittura nella cache su disco non riuscita: " + e.getMessage());
+        }
+    }
+
+    private synchronized Maze lookup(Key key) {
+        return entries.get(key);
+    }
+
+    // Si scartano i meno usati finche' il nuovo labirinto ci sta; uno piu' grande dell'intera cache non si tiene
+    private synchronized void store(Key key, Maze maze) {
+        long size = sizeOf(maze);
+        if (size > maxBytes) return;
+        Iterator<Map.Entry<Key, Maze>> eldest = entries.entrySet().iterator();
+        while (bytes + size > maxBytes && eldest.hasNext()) {
+            bytes -= sizeOf(eldest.next().getValue());
+            eldest.remove();
+        }
+        if (entries.put(key, maze) == null) bytes += size;
+    }
+
+    private static long sizeOf(Maze maze) {
+        return MazeStorage.PLANES * maze.getStorage().wordsPerPlane * Long.BYTES;
+    }
+
+    private static Maze await(CompletableFuture<Maze> running) throws InterruptedException {
+        try {
+            return running.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private static final class Key {
+        final int rows, cols, algorithm;
+        final long seed;
+
+        Key(int rows, int cols, long seed, int algorithm) {
+            this.rows = rows;
+            this.cols = cols;
+            this.seed = seed;
+            this.algorithm = algorithm;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key)) return false;
+            Key key = (Key) other;
+            return rows == key.rows && cols == key.cols && seed == key.seed && algorithm == key.algorithm;
+        }
+
+        @Override
+        public int hashCode() {
+            return ((rows * 31 + cols) * 31 + algorithm) * 31 + Long.hashCode(seed);
+        }
+    }
+}
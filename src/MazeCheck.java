@@ -0,0 +1,343 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+
+// Controlli senza interfaccia grafica delle parti che non si vedono a occhio: java MazeCheck
+// Ogni algoritmo deve dare un labirinto perfetto (tutte le celle scavate, connesso, senza cicli)
+// e sempre lo stesso a parita' di seed.
+// Con un listener il labirinto non cambia e il registro degli eventi lo ricostruisce.
+// Lo storage mappato su file da' gli stessi labirinti di quello su heap e rifiuta i file rovinati.
+// I risolutori trovano tutti lo stesso percorso valido; con i cicli A* trova ancora il piu' corto.
+// Il formato su file restituisce labirinto, algoritmo e seed.
+// La coda degli eventi dell'animazione li consegna nell'ordine.
+// L'istogramma delle durate resta nell'errore dichiarato.
+// Una serie con dimensioni impossibili si rifiuta prima di partire.
+// La cache su disco toglie le voci il cui file manca o e' rovinato.
+// Stampa i controlli falliti ed esce con 1 se ce n'e' almeno uno.
+public class MazeCheck {
+    private static final int[][] SIZES = {{1, 1}, {1, 17}, {23, 1}, {2, 2}, {31, 64}, {100, 100}, {257, 300}, {600, 530}};
+    private static final long[] SEEDS = {0, 42, -7};
+
+    private final Path dir;   // File temporanei, cancellati alla fine
+    private int checks, failures;
+
+    private MazeCheck(Path dir) {
+        this.dir = dir;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        MazeCheck check = new MazeCheck(Files.createTempDirectory("maze-check"));
+        try {
+            check.algorithms();
+            check.carveLog();
+            check.mappedStorage();
+            check.solvers();
+            check.mazeFile();
+            check.eventRing();
+            check.histogram();
+            check.batchSpec();
+            check.diskCache();
+        } finally {
+            try (var files = Files.walk(check.dir)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) Files.delete(file);
+            }
+        }
+        System.out.printf("%d controlli, %d falliti%n", check.checks, check.failures);
+        if (check.failures > 0) System.exit(1);
+    }
+
+    private void check(boolean ok, String what) {
+        checks++;
+        if (!ok) {
+            failures++;
+            System.out.println("FALLITO: " + what);
+        }
+    }
+
+    private void algorithms() throws InterruptedException {
+        for (MazeAlgorithm algorithm : MazeAlgorithms.all()) {
+            for (int[] size : SIZES) {
+                for (long seed : SEEDS) {
+                    String what = algorithm.getName() + " " + size[0] + "x" + size[1] + " seed " + seed;
+                    Maze maze = generate(algorithm, size, seed, null);
+                    check(isPerfect(maze.getStorage()), what + ": labirinto perfetto");
+                    check(sameMaze(maze.getStorage(), generate(algorithm, size, seed, null).getStorage()),
+                            what + ": stesso labirinto con lo stesso seed");
+                }
+            }
+            int[] size = {40, 40};
+            check(!sameMaze(generate(algorithm, size, 1, null).getStorage(), generate(algorithm, size, 2, null).getStorage()),
+                    algorithm.getName() + ": seed diversi, labirinti diversi");
+        }
+    }
+
+    private void carveLog() throws IOException, InterruptedException {
+        for (MazeAlgorithm algorithm : MazeAlgorithms.all()) {
+            for (int[] size : SIZES) {
+                String what = algorithm.getName() + " " + size[0] + "x" + size[1];
+                CarveLog log = new CarveLog(size[0], size[1]);
+                Maze maze = generate(algorithm, size, 42, log);
+                check(sameMaze(generate(algorithm, size, 42, null).getStorage(), maze.getStorage()),
+                        what + ": stesso labirinto con e senza listener");
+                Maze replayed = new Maze(size[0], size[1]);
+                log.apply(replayed.getStorage(), 0, log.size());
+                check(sameMaze(maze.getStorage(), replayed.getStorage()), what + ": il registro lo ricostruisce");
+            }
+        }
+
+        CarveLog log = new CarveLog(50, 60);
+        generate(MazeAlgorithms.DEPTH_FIRST, new int[] {50, 60}, 5, log);
+        Path file = dir.resolve("registro.mazl");
+        log.save(file);
+        CarveLog loaded = CarveLog.load(file);
+        boolean same = loaded.size() == log.size();
+        for (int i = 0; same && i < log.size(); i++) same = loaded.getEvent(i) == log.getEvent(i);
+        check(same, "CarveLog: stessi eventi dopo save e load");
+    }
+
+    private void mappedStorage() throws IOException, InterruptedException {
+        Maze heap = generate(MazeAlgorithms.byName("Prim"), new int[] {300, 200}, 11, null);
+        try (MappedMazeStorage mapped = MappedMazeStorage.create(dir.resolve("mappato.bin"), 300, 200)) {
+            new Maze(mapped).generate(MazeAlgorithms.byName("Prim"), 11, null);
+            check(sameMaze(heap.getStorage(), mapped), "MappedMazeStorage: stesso labirinto dello storage su heap");
+        }
+        try (MappedMazeStorage reopened = MappedMazeStorage.open(dir.resolve("mappato.bin"))) {
+            check(sameMaze(heap.getStorage(), reopened), "MappedMazeStorage: stesso labirinto dopo la riapertura");
+        }
+
+        // Un file troncato o con dimensioni impossibili non si apre, e resta com'era
+        Path truncated = dir.resolve("troncato.bin");
+        Files.copy(dir.resolve("mappato.bin"), truncated);
+        try (FileChannel channel = FileChannel.open(truncated, StandardOpenOption.WRITE)) {
+            channel.truncate(100);
+        }
+        check(!opens(truncated) && Files.size(truncated) == 100, "MappedMazeStorage: file troncato rifiutato");
+        Path negative = dir.resolve("negativo.bin");
+        Files.copy(dir.resolve("mappato.bin"), negative);
+        try (FileChannel channel = FileChannel.open(negative, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, -300), 8);
+        }
+        check(!opens(negative), "MappedMazeStorage: dimensioni negative rifiutate");
+    }
+
+    private static boolean opens(Path path) {
+        try (MappedMazeStorage storage = MappedMazeStorage.open(path)) {
+            return storage.getRows() > 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void solvers() throws InterruptedException {
+        for (int[] size : SIZES) {
+            Maze maze = generate(MazeAlgorithms.byName("Kruskal"), size, size[0] * 31L + size[1], null);
+            int[] expected = null;
+            for (MazeSolver solver : MazeSolvers.all()) {
+                int[] path = solver.solve(maze.getStorage());
+                String what = solver.getName() + " " + size[0] + "x" + size[1];
+                check(isPath(maze.getStorage(), path), what + ": percorso valido dall'entrata all'uscita");
+                // In un labirinto perfetto il percorso e' unico
+                if (expected == null) expected = path;
+                check(Arrays.equals(expected, path), what + ": stesso percorso degli altri risolutori");
+            }
+        }
+
+        // Con i cicli BFS e A* devono trovare un percorso piu' corto della stessa lunghezza
+        SplittableRandom random = new SplittableRandom(5);
+        for (int i = 0; i < 200; i++) {
+            int[] size = {2 + random.nextInt(60), 2 + random.nextInt(60)};
+            MazeStorage storage = generate(MazeAlgorithms.byName("Kruskal"), size, i, null).getStorage();
+            for (int extra = size[0] * size[1] / 8; extra > 0; extra--) {
+                int r = random.nextInt(size[0]), c = random.nextInt(size[1]);
+                if (random.nextBoolean() && c + 1 < size[1]) storage.openEast(r, c);
+                else if (r + 1 < size[0]) storage.openSouth(r, c);
+            }
+            int[] shortest = MazeSolvers.BREADTH_FIRST.solve(storage);
+            int[] path = MazeSolvers.byName("A*").solve(storage);
+            check(isPath(storage, path) && path.length == shortest.length,
+                    "A* " + size[0] + "x" + size[1] + " con cicli: percorso piu' corto");
+        }
+    }
+
+    private void mazeFile() throws IOException, InterruptedException {
+        Maze maze = generate(MazeAlgorithms.byName("Wilson"), new int[] {123, 77}, 9, null);
+        for (boolean compress : new boolean[] {false, true}) {
+            Path file = dir.resolve("labirinto" + compress + ".maze");
+            MazeFile.write(file, maze, 3, 9L, compress);
+            MazeFile read = MazeFile.read(file);
+            String what = "MazeFile" + (compress ? " compresso" : "");
+            check(sameMaze(maze.getStorage(), read.getMaze().getStorage()), what + ": stesso labirinto dopo la lettura");
+            check(read.getAlgorithmId() == 3 && Long.valueOf(9).equals(read.getSeed()), what + ": algoritmo e seed");
+        }
+    }
+
+    // Produttore e consumatore su due thread: gli eventi arrivano nell'ordine e, se la coda trabocca,
+    // quelli ricevuti sono un prefisso esatto e non ne arrivano altri
+    private void eventRing() throws InterruptedException {
+        int events = 1 << 20;
+        CarveEventRing ring = new CarveEventRing(1 << 20, 1 << 10);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < events; i++) ring.offer(i);
+        });
+        producer.start();
+        int received = 0;
+        boolean ordered = true;
+        while (true) {
+            boolean done = !producer.isAlive();   // Letto prima di svuotare: dopo non arriva piu' niente
+            int event;
+            while ((event = ring.poll()) != CarveEventRing.EMPTY) ordered &= event == received++;
+            if (done) break;
+        }
+        producer.join();
+        check(ordered, "CarveEventRing: eventi nell'ordine di scavo");
+        check(received == events || ring.isOverflowed(), "CarveEventRing: tutti gli eventi se la coda non trabocca");
+
+        CarveEventRing small = new CarveEventRing(10, 4);
+        for (int i = 0; i < 10; i++) small.offer(i);
+        boolean prefix = small.isOverflowed();
+        for (int i = 0; i < 4; i++) prefix &= small.poll() == i;
+        prefix &= small.poll() == CarveEventRing.EMPTY && !small.offer(99);
+        check(prefix, "CarveEventRing: dopo il traboccamento resta il prefisso e non si accetta altro");
+    }
+
+    private void histogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        SplittableRandom random = new SplittableRandom(3);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1 + random.nextLong(1_000_000_000L);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        for (double q : new double[] {0.5, 0.9, 0.99}) {
+            long exact = values[(int) Math.ceil(q * values.length) - 1];
+            double error = Math.abs(histogram.getPercentile(q) - exact) / (double) exact;
+            check(error <= 0.125, "LatencyHistogram: p" + (int) (q * 100) + " entro il 12,5%");
+        }
+        check(histogram.getCount() == values.length && histogram.getMax() == values[values.length - 1],
+                "LatencyHistogram: conteggio e massimo esatti");
+    }
+
+    private static Maze generate(MazeAlgorithm algorithm, int[] size, long seed, CarveListener listener)
+            throws InterruptedException {
+        Maze maze = new Maze(size[0], size[1]);
+        maze.generate(algorithm, seed, listener);
+        return maze;
+    }
+
+    private void batchSpec() {
+        check(batchSize("1x1") && batchSize("10x20,1x2147483647"), "BatchSpec: dimensioni valide accettate");
+        for (String size : new String[] {"0x5", "5x0", "-3x4", "46341x46341", "20x20,2147483647x1"}) {
+            check(!batchSize(size), "BatchSpec: dimensione " + size + " rifiutata");
+        }
+    }
+
+    private boolean batchSize(String size) {
+        try {
+            BatchSpec.parse(new String[] {"--out", dir.resolve("serie.mazb").toString(), "--count", "3", "--size", size});
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private void diskCache() throws IOException, InterruptedException {
+        MazeAlgorithm algorithm = MazeAlgorithms.DEPTH_FIRST;
+        DiskMazeCache cache = new DiskMazeCache(dir.resolve("cache"), 1L << 20);
+        try {
+            Maze maze = cache.getOrGenerate(64, 64, algorithm, 7);
+            Maze cached = cache.get(64, 64, algorithm, 7);
+            check(cached != null && sameMaze(maze.getStorage(), cached.getStorage()), "DiskMazeCache: labirinto ritrovato");
+
+            try (var files = Files.list(cache.getDirectory())) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    if (file.toString().endsWith(".maze")) Files.delete(file);
+                }
+            }
+            check(cache.get(64, 64, algorithm, 7) == null && cache.getBytes() == 0, "DiskMazeCache: voce senza file tolta");
+            cache.getOrGenerate(64, 64, algorithm, 7);
+            check(cache.get(64, 64, algorithm, 7) != null, "DiskMazeCache: voce senza file salvata di nuovo");
+
+            try (var files = Files.list(cache.getDirectory())) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    if (file.toString().endsWith(".maze")) Files.write(file, new byte[] {1, 2, 3});
+                }
+            }
+            check(cache.get(64, 64, algorithm, 7) == null && cache.getBytes() == 0, "DiskMazeCache: voce rovinata tolta");
+            cache.getOrGenerate(64, 64, algorithm, 7);
+            check(cache.get(64, 64, algorithm, 7) != null, "DiskMazeCache: voce rovinata salvata di nuovo");
+        } finally {
+            cache.close();
+        }
+    }
+
+    // Albero ricoprente: tutte le celle scavate, cells - 1 passaggi e nessun ciclo (union-find)
+    static boolean isPerfect(MazeStorage storage) {
+        int rows = storage.getRows(), cols = storage.getCols();
+        int[] parent = new int[rows * cols];
+        for (int i = 0; i < parent.length; i++) parent[i] = i;
+        long passages = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (!storage.isVisited(r, c)) return false;
+                if (c + 1 < cols && storage.isEastOpen(r, c)) {
+                    passages++;
+                    if (!union(parent, r * cols + c, r * cols + c + 1)) return false;
+                }
+                if (r + 1 < rows && storage.isSouthOpen(r, c)) {
+                    passages++;
+                    if (!union(parent, r * cols + c, (r + 1) * cols + c)) return false;
+                }
+            }
+        }
+        return passages == (long) rows * cols - 1;
+    }
+
+    private static boolean union(int[] parent, int a, int b) {
+        a = find(parent, a);
+        b = find(parent, b);
+        if (a == b) return false;
+        parent[a] = b;
+        return true;
+    }
+
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) x = parent[x] = parent[parent[x]];
+        return x;
+    }
+
+    private static boolean sameMaze(MazeStorage a, MazeStorage b) {
+        if (a.getRows() != b.getRows() || a.getCols() != b.getCols()) return false;
+        for (int r = 0; r < a.getRows(); r++) {
+            for (int c = 0; c < a.getCols(); c++) {
+                if (a.isEastOpen(r, c) != b.isEastOpen(r, c) || a.isSouthOpen(r, c) != b.isSouthOpen(r, c)
+                        || a.isVisited(r, c) != b.isVisited(r, c)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // Dall'entrata (0, 0) all'uscita, una cella adiacente alla volta e solo attraverso passaggi aperti
+    private static boolean isPath(MazeStorage storage, int[] path) {
+        int cols = storage.getCols();
+        if (path.length == 0 || path[0] != 0 || path[path.length - 1] != storage.getRows() * cols - 1) return false;
+        for (int i = 1; i < path.length; i++) {
+            int from = Math.min(path[i - 1], path[i]), to = Math.max(path[i - 1], path[i]);
+            int r = from / cols, c = from % cols;
+            // Prima il sud: con una sola colonna from + 1 e from + cols coincidono
+            boolean open = to == from + cols ? storage.isSouthOpen(r, c)
+                         : to == from + 1 && c + 1 < cols && storage.isEastOpen(r, c);
+            if (!open) return false;
+        }
+        return true;
+    }
+}
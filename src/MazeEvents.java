@@ -0,0 +1,138 @@
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Eventi di Java Flight Recorder per capire dove va il tempo di una sessione: algoritmo, disegno sull'EDT
+// o GC (gli eventi della JVM stanno nella stessa registrazione). Da disattivati costano un controllo di un flag:
+//   jcmd <pid> JFR.start name=maze filename=maze.jfr
+// Nessuno raccoglie lo stack: servirebbe a poco e costerebbe a ogni frame.
+public class MazeEvents {
+    // Celle fra un evento di avanzamento e il successivo
+    static final int PROGRESS_BATCH = 1 << 16;
+
+    private MazeEvents() {
+    }
+
+    @Name("maze.Generation")
+    @Label("Generazione")
+    @Category({"Maze", "Generazione"})
+    @Description("Una chiamata a Maze.generate")
+    @StackTrace(false)
+    public static class Generation extends Event {
+        @Label("Righe") int rows;
+        @Label("Colonne") int cols;
+        @Label("Algoritmo") String algorithm;
+        @Label("Seed") long seed;
+    }
+
+    @Name("maze.CarveProgress")
+    @Label("Avanzamento dello scavo")
+    @Category({"Maze", "Generazione"})
+    @Description("Un blocco di celle scavate; la durata e' il tempo impiegato per scavarle")
+    @StackTrace(false)
+    public static class CarveProgress extends Event {
+        @Label("Celle nel blocco") int cells;
+        @Label("Celle scavate in tutto") long carved;
+        @Label("Celle totali") long total;
+    }
+
+    @Name("maze.Paint")
+    @Label("Disegno del pannello")
+    @Category({"Maze", "Disegno"})
+    @Description("Una chiamata a MazePanel.paintComponent")
+    @StackTrace(false)
+    public static class Paint extends Event {
+        @Label("Modo") String mode;       // "cache", "dettaglio" o "panoramica"
+        @Label("Celle disegnate") long cells;
+        @Label("Larghezza del clip") int clipWidth;
+        @Label("Altezza del clip") int clipHeight;
+    }
+
+    @Name("maze.Reset")
+    @Label("Azzeramento")
+    @Category({"Maze", "Generazione"})
+    @StackTrace(false)
+    public static class Reset extends Event {
+        @Label("Righe") int rows;
+        @Label("Colonne") int cols;
+        @Label("Memoria") @DataAmount long bytes;
+    }
+
+    @Name("maze.Resize")
+    @Label("Ridimensionamento")
+    @Category({"Maze", "Interfaccia"})
+    @Description("MazeUI.resizeMaze: arresto della riproduzione e creazione del nuovo labirinto")
+    @StackTrace(false)
+    public static class Resize extends Event {
+        @Label("Righe prima") int oldRows;
+        @Label("Colonne prima") int oldCols;
+        @Label("Righe") int rows;
+        @Label("Colonne") int cols;
+    }
+
+    // Il listener con cui generare: se l'avanzamento non si registra e' quello dato, altrimenti un involucro
+    // che conta le celle distinte e chiude un evento ogni PROGRESS_BATCH
+    static CarveListener withProgress(CarveListener listener, int rows, int cols) {
+        if (!new CarveProgress().isEnabled()) return listener;
+        return new ProgressListener(listener, rows, cols);
+    }
+
+    // Eller, Kruskal e l'unione delle tessere notificano piu' volte la stessa cella: si contano solo
+    // le celle nuove, con un bit per cella (solo mentre la registrazione e' attiva)
+    private static final class ProgressListener implements CarveListener {
+        private final CarveListener delegate;   // null se la generazione non ha listener
+        private final int cols;
+        private final long total;
+        private final long[] seen;
+        private CarveProgress event = new CarveProgress();
+        private int cells;
+        private long carved;
+
+        ProgressListener(CarveListener delegate, int rows, int cols) {
+            this.delegate = delegate;
+            this.cols = cols;
+            this.total = (long) rows * cols;
+            this.seen = new long[(int) ((total + 63) >>> 6)];
+            event.begin();
+        }
+
+        @Override
+        public void cellCarved(int row, int col, int direction) throws InterruptedException {
+            long cell = (long) row * cols + col;
+            long bit = 1L << cell;
+            int word = (int) (cell >>> 6);
+            if ((seen[word] & bit) == 0) {
+                seen[word] |= bit;
+                if (++cells == PROGRESS_BATCH || carved + cells == total) {
+                    commit();
+                }
+            }
+            if (delegate != null) delegate.cellCarved(row, col, direction);
+        }
+
+        @Override
+        public void backtracked(int row, int col) throws InterruptedException {
+            if (delegate != null) delegate.backtracked(row, col);
+        }
+
+        @Override
+        public void checkpoint() throws InterruptedException {
+            if (delegate != null) delegate.checkpoint();
+        }
+
+        private void commit() {
+            carved += cells;
+            event.cells = cells;
+            event.carved = carved;
+            event.total = total;
+            event.commit();
+            cells = 0;
+            event = new CarveProgress();
+            event.begin();
+        }
+    }
+}
@@ -0,0 +1,229 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+
+// Esportazione del labirinto come immagine, con lo stile di MazePanel alla cella di base (25 px).
+// Il PNG si rasterizza a strisce orizzontali che passano subito al codificatore, l'SVG si scrive
+// riga per riga: in entrambi i casi la memoria non dipende dall'altezza del labirinto.
+public class MazeExporter {
+    private static final int PADDING = MazePanel.LAYER_PADDING;   // Spazio per ombra e frecce
+    private static final int BASE_CELL = MazePanel.BASE_CELL_SIZE;
+    private static final long STRIP_PIXELS = 1L << 22;            // Pixel per striscia: 16 MB di immagine
+    static final long MAX_PNG_PIXELS = 1L << 32;                  // Circa 2600x2600 celle: oltre si esporta in SVG
+
+    public static void writePng(Path path, Maze maze, int[] solution) throws IOException {
+        checkPngSize(maze);   // Prima di troncare il file
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            writePng(channel, maze, solution);
+        }
+    }
+
+    public static void writePng(WritableByteChannel channel, Maze maze, int[] solution) throws IOException {
+        checkPngSize(maze);
+        MazePanel renderer = new MazePanel(maze, false);
+        renderer.setSolution(solution);
+        int cellSize = (int) renderer.getScale();
+        long width = (long) maze.getCols() * cellSize + 2 * PADDING;
+        long height = (long) maze.getRows() * cellSize + 2 * PADDING;
+
+        int stripHeight = (int) Math.max(1, Math.min(height, STRIP_PIXELS / width));
+        BufferedImage strip = new BufferedImage((int) width, stripHeight, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) strip.getRaster().getDataBuffer()).getData();
+        PngEncoder encoder = new PngEncoder(channel, (int) width, (int) height);
+
+        for (int y = 0; y < height; y += stripHeight) {
+            int rows = (int) Math.min(stripHeight, height - y);
+            Graphics2D g2 = strip.createGraphics();
+            g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+            g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g2.setColor(renderer.getBackground());
+            g2.fillRect(0, 0, (int) width, stripHeight);
+            // La striscia e' la finestra [y, y + rows) dell'immagine intera: il pannello disegna solo il clip
+            g2.translate(0, -y);
+            g2.clipRect(0, y, (int) width, rows);
+            renderer.paintMaze(g2, PADDING, PADDING);
+            g2.dispose();
+            encoder.writeRows(pixels, 0, (int) width, rows);
+        }
+        encoder.finish();
+    }
+
+    // Pixel del PNG di un labirinto rows x cols, alla cella di base
+    static long pngPixels(int rows, int cols) {
+        return ((long) cols * BASE_CELL + 2 * PADDING) * ((long) rows * BASE_CELL + 2 * PADDING);
+    }
+
+    // La scala non si riduce mai: un labirinto troppo grande si rifiuta
+    private static void checkPngSize(Maze maze) throws IOException {
+        long pixels = pngPixels(maze.getRows(), maze.getCols());
+        if (pixels > MAX_PNG_PIXELS) {
+            throw new IOException("Immagine troppo grande per il PNG (" + pixels + " pixel, massimo "
+                    + MAX_PNG_PIXELS + "): esportare in SVG");
+        }
+    }
+
+    public static void writeSvg(Path path, Maze maze, int[] solution) throws IOException {
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writeSvg(out, maze, solution);
+        }
+    }
+
+    public static void writeSvg(WritableByteChannel channel, Maze maze, int[] solution) throws IOException {
+        Writer out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1));
+        writeSvg(out, maze, solution);
+        out.flush();
+    }
+
+    // Stessi livelli di drawMazeContent: sfondo, celle visitate, muri, entrate, marcatori e percorso
+    public static void writeSvg(Writer out, Maze maze, int[] solution) throws IOException {
+        int rows = maze.getRows(), cols = maze.getCols();
+        MazePanel renderer = new MazePanel(maze, false);
+        int cellSize = (int) renderer.getScale();
+        long mazeWidth = (long) cols * cellSize, mazeHeight = (long) rows * cellSize;
+        long width = mazeWidth + 2 * PADDING, height = mazeHeight + 2 * PADDING;
+        int x0 = PADDING, y0 = PADDING;
+
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "\" height=\"" + height
+                + "\" viewBox=\"0 0 " + width + " " + height + "\">\n");
+
+        // Gradiente radiale dal centro: la rampa di MazePanel e' lineare nella distanza dal centro,
+        // misurata fra gli angoli delle celle, quindi il centro si sposta di mezza cella
+        double centerX = x0 + cols / 2.0 * cellSize + cellSize / 2.0;
+        double centerY = y0 + rows / 2.0 * cellSize + cellSize / 2.0;
+        double radius = Math.hypot(cols / 2.0, rows / 2.0) * cellSize;
+        out.write("<defs><radialGradient id=\"visited\" gradientUnits=\"userSpaceOnUse\" cx=\"" + centerX + "\" cy=\""
+                + centerY + "\" r=\"" + radius + "\">"
+                + "<stop offset=\"0\" stop-color=\"" + hex(MazePanel.VISITED_PRIMARY) + "\" stop-opacity=\"" + opacity(MazePanel.VISITED_PRIMARY) + "\"/>"
+                + "<stop offset=\"1\" stop-color=\"" + hex(MazePanel.VISITED_SECONDARY) + "\" stop-opacity=\"" + opacity(MazePanel.VISITED_SECONDARY) + "\"/>"
+                + "</radialGradient></defs>\n");
+
+        // Sfondo, ombra, fondo e bordo
+        out.write("<rect width=\"" + width + "\" height=\"" + height + "\"" + fill(renderer.getBackground()) + "/>\n");
+        out.write("<rect x=\"" + (x0 + 2) + "\" y=\"" + (y0 + 2) + "\" width=\"" + (mazeWidth + 4) + "\" height=\"" + (mazeHeight + 4)
+                + "\" rx=\"4\"" + fill(MazePanel.SHADOW) + "/>\n");
+        out.write("<rect x=\"" + x0 + "\" y=\"" + y0 + "\" width=\"" + mazeWidth + "\" height=\"" + mazeHeight
+                + "\" rx=\"3\"" + fill(MazePanel.BACKGROUND) + " stroke=\"" + hex(MazePanel.BORDER) + "\"/>\n");
+
+        // Celle visitate: un sottopercorso per cella, una riga per elemento
+        int inner = cellSize - 2;
+        out.write("<g fill=\"url(#visited)\">\n");
+        for (int r = 0; r < rows; r++) {
+            StringBuilder d = new StringBuilder();
+            int lastX = -1;
+            for (int c = 0; c < cols; c++) {
+                if (!maze.isVisited(r, c)) continue;
+                int x = x0 + c * cellSize + 1;
+                if (lastX < 0) {
+                    d.append('M').append(x).append(' ').append(y0 + (long) r * cellSize + 1);
+                } else {
+                    d.append('m').append(x - lastX).append(" 0");
+                }
+                d.append('h').append(inner).append('v').append(inner).append('h').append(-inner).append('z');
+                lastX = x;
+            }
+            if (lastX >= 0) out.write("<path d=\"" + d + "\"/>\n");
+        }
+        out.write("</g>\n");
+
+        // Muri: gli stessi tratti fusi di WallGeometry, come linee con estremi quadrati
+        out.write("<g stroke=\"" + hex(MazePanel.WALL_COLOR) + "\" stroke-width=\"" + MazePanel.WALL_THICKNESS
+                + "\" stroke-linecap=\"square\" fill=\"none\">\n");
+        for (int k = 0; k <= rows; k++) {
+            StringBuilder d = new StringBuilder();
+            long y = y0 + (long) k * cellSize;
+            for (int c = 0, start = -1; c <= cols; c++) {
+                boolean wall = c < cols && (k == rows || maze.hasTopWall(k, c));
+                if (wall && start < 0) {
+                    start = c;
+                } else if (!wall && start >= 0) {
+                    d.append('M').append(x0 + (long) start * cellSize).append(' ').append(y).append('H').append(x0 + (long) c * cellSize);
+                    start = -1;
+                }
+            }
+            if (d.length() > 0) out.write("<path d=\"" + d + "\"/>\n");
+        }
+        for (int k = 0; k <= cols; k++) {
+            StringBuilder d = new StringBuilder();
+            long x = x0 + (long) k * cellSize;
+            for (int r = 0, start = -1; r <= rows; r++) {
+                boolean wall = r < rows && (k == cols || maze.hasLeftWall(r, k));
+                if (wall && start < 0) {
+                    start = r;
+                } else if (!wall && start >= 0) {
+                    d.append('M').append(x).append(' ').append(y0 + (long) start * cellSize).append('V').append(y0 + (long) r * cellSize);
+                    start = -1;
+                }
+            }
+            if (d.length() > 0) out.write("<path d=\"" + d + "\"/>\n");
+        }
+        out.write("</g>\n");
+
+        // Aperture di entrata e uscita, frecce
+        int entranceSize = cellSize / 2;
+        int entranceOffset = (cellSize - entranceSize) / 2;
+        long exitX = x0 + mazeWidth;
+        long exitY = y0 + mazeHeight - cellSize;
+        out.write("<path stroke=\"" + hex(MazePanel.BACKGROUND) + "\" stroke-width=\"" + (MazePanel.WALL_THICKNESS + 1)
+                + "\" stroke-linecap=\"square\" d=\"M" + x0 + " " + (y0 + entranceOffset) + "v" + entranceSize
+                + "M" + exitX + " " + (exitY + entranceOffset) + "v" + entranceSize + "\"/>\n");
+        out.write("<path stroke=\"" + hex(MazePanel.ENTRANCE_COLOR) + "\" stroke-linecap=\"round\" stroke-linejoin=\"round\" fill=\"none\" d=\""
+                + arrow(x0 - 12, y0 + cellSize / 2) + arrow(exitX + 6, exitY + cellSize / 2) + "\"/>\n");
+
+        // Marcatori di inizio e fine
+        out.write(marker(x0 + cellSize / 2, y0 + cellSize / 2, MazePanel.START_COLOR));
+        out.write(marker(x0 + (long) ((cols - 0.5) * cellSize), y0 + (long) ((rows - 0.5) * cellSize), MazePanel.END_COLOR));
+
+        // Percorso: solo gli angoli, come in MazePanel
+        if (solution != null && solution.length > 0) {
+            out.write("<polyline fill=\"none\" stroke=\"" + hex(MazePanel.SOLUTION_COLOR) + "\" stroke-width=\""
+                    + Math.max(1.5, cellSize / 4.0) + "\" stroke-linecap=\"round\" stroke-linejoin=\"round\" points=\"");
+            for (int i = 0; i < solution.length; i++) {
+                boolean corner = i == 0 || i + 1 == solution.length
+                        || solution[i + 1] - solution[i] != solution[i] - solution[i - 1];
+                if (!corner) continue;
+                out.write((x0 + (solution[i] % cols + 0.5) * cellSize) + ","
+                        + (y0 + (solution[i] / cols + 0.5) * cellSize) + " ");
+            }
+            out.write("\"/>\n");
+        }
+        out.write("</svg>\n");
+    }
+
+    private static String arrow(long x, long y) {
+        return "M" + x + " " + y + "h6M" + (x + 3) + " " + (y - 2) + "l3 2l-3 2";
+    }
+
+    private static String marker(long x, long y, Color color) {
+        return "<circle cx=\"" + x + "\" cy=\"" + y + "\" r=\"6\"" + fill(color) + "/>"
+             + "<circle cx=\"" + x + "\" cy=\"" + y + "\" r=\"3\"" + fill(MazePanel.BACKGROUND) + "/>\n";
+    }
+
+    private static String fill(Color color) {
+        String fill = " fill=\"" + hex(color) + "\"";
+        return color.getAlpha() == 255 ? fill : fill + " fill-opacity=\"" + opacity(color) + "\"";
+    }
+
+    private static String hex(Color color) {
+        return String.format("#%06x", color.getRGB() & 0xFFFFFF);
+    }
+
+    private static String opacity(Color color) {
+        return String.format(Locale.ROOT, "%.3f", color.getAlpha() / 255.0);
+    }
+}
@@ -0,0 +1,153 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// Formato binario di un labirinto completo. Intestazione di 32 byte little-endian:
+// "MAZF", versione, righe, colonne, algoritmo (indice in MazeAlgorithms, -1 se ignoto), flag, seed
+// (significativo solo con il flag SEEDED).
+// Corpo: i piani est e sud cosi' come stanno in MazeStorage (2 bit per cella, righe allineate a 64 bit),
+// compressi con Deflater se il flag COMPRESSED e' attivo. Il piano delle visite non si salva:
+// un labirinto salvato e' completo, quindi al caricamento tutte le celle risultano visitate.
+public class MazeFile {
+    public static final int UNKNOWN_ALGORITHM = -1;
+    public static final int COMPRESSED = 1;
+    public static final int SEEDED = 2;
+
+    private static final int MAGIC = 0x4D415A46; // "MAZF"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int CHUNK_BYTES = 1 << 20;
+
+    private final Maze maze;
+    private final int algorithmId;
+    private final Long seed;
+
+    private MazeFile(Maze maze, int algorithmId, Long seed) {
+        this.maze = maze;
+        this.algorithmId = algorithmId;
+        this.seed = seed;
+    }
+
+    public Maze getMaze() { return maze; }
+    public int getAlgorithmId() { return algorithmId; }
+    public Long getSeed() { return seed; }   // null se il labirinto non viene da un seed noto
+
+    public static void write(Path path, Maze maze, int algorithmId, Long seed, boolean compress) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            write(channel, maze, algorithmId, seed, compress);
+        }
+    }
+
+    // Scrive su un canale qualsiasi (file, socket, risposta HTTP) a blocchi, con un solo buffer diretto
+    public static void write(WritableByteChannel channel, Maze maze, int algorithmId, Long seed, boolean compress) throws IOException {
+        MazeStorage storage = maze.getStorage();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(maze.getRows()).putInt(maze.getCols())
+              .putInt(algorithmId).putInt((compress ? COMPRESSED : 0) | (seed != null ? SEEDED : 0))
+              .putLong(seed != null ? seed : 0L);
+        writeFully(channel, buffer);
+
+        long words = 2 * storage.wordsPerPlane; // Piani est e sud, contigui
+        ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        Deflater deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+        try {
+            for (long from = 0; from < words; ) {
+                int count = (int) Math.min(words - from, CHUNK_BYTES / Long.BYTES);
+                chunk.clear();
+                LongBuffer view = chunk.asLongBuffer();
+                view.limit(count);
+                storage.getWords(from, view);
+                chunk.position(count * Long.BYTES);
+                from += count;
+
+                if (deflater == null) {
+                    writeFully(channel, chunk);
+                    continue;
+                }
+                deflater.setInput(chunk.flip());
+                if (from == words) deflater.finish();
+                while (!deflater.needsInput() || (from == words && !deflater.finished())) {
+                    deflater.deflate(buffer);
+                    writeFully(channel, buffer);
+                }
+            }
+        } finally {
+            if (deflater != null) deflater.end();
+        }
+    }
+
+    // Il file si mappa in memoria: senza compressione il corpo finisce nell'archivio con copie in blocco
+    public static MazeFile read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return read(mapped);
+        }
+    }
+
+    public static MazeFile read(ByteBuffer data) throws IOException {
+        ByteBuffer in = data.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < HEADER_SIZE || in.getInt() != MAGIC || in.getInt() != VERSION) {
+            throw new IOException("Non e' un labirinto salvato");
+        }
+        int rows = in.getInt(), cols = in.getInt();
+        int algorithmId = in.getInt(), flags = in.getInt();
+        long seed = in.getLong();
+        if (rows < 1 || cols < 1 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new IOException("Dimensioni non valide: " + rows + "x" + cols);
+        }
+
+        Maze maze = new Maze(rows, cols);
+        MazeStorage storage = maze.getStorage();
+        long words = 2 * storage.wordsPerPlane;
+        if ((flags & COMPRESSED) == 0) {
+            if (in.remaining() != words * Long.BYTES) throw new IOException("File troncato o corrotto");
+            storage.setWords(0, in.asLongBuffer());
+        } else {
+            inflate(in, storage, words);
+        }
+        storage.setAllVisited();
+        return new MazeFile(maze, algorithmId, (flags & SEEDED) != 0 ? Long.valueOf(seed) : null);
+    }
+
+    private static void inflate(ByteBuffer in, MazeStorage storage, long words) throws IOException {
+        Inflater inflater = new Inflater();
+        ByteBuffer chunk = ByteBuffer.allocateDirect(CHUNK_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        try {
+            inflater.setInput(in);
+            for (long from = 0; from < words; ) {
+                int count = (int) Math.min(words - from, CHUNK_BYTES / Long.BYTES);
+                chunk.clear().limit(count * Long.BYTES);
+                while (chunk.hasRemaining()) {
+                    if (inflater.inflate(chunk) == 0 && (inflater.finished() || inflater.needsInput())) {
+                        throw new IOException("File troncato o corrotto");
+                    }
+                }
+                chunk.flip();
+                storage.setWords(from, chunk.asLongBuffer());
+                from += count;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("File corrotto: " + e.getMessage(), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
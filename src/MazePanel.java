@@ -1,25 +1,198 @@
 import javax.swing.*;
 import java.awt.*;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 
 public class MazePanel extends JPanel {
     private final Maze maze;
-    private static final int CELL_SIZE = 25;
-    private static final int WALL_THICKNESS = 2;
+    private int currentRow = -1, currentCol = -1;
+    private int[] solution;
+    
+    // Cache raster del contenuto statico (sfondo, celle visitate, muri, entrate e marcatori),
+    // in coordinate del labirinto traslate di LAYER_PADDING: uno scroll o un resize la ricopiano soltanto
+    private Image layer;
+    private boolean layerValid;
+    private final Rectangle dirtyRegion = new Rectangle();
+    
+    // Distanze al quadrato dal centro per riga e per colonna, calcolate una volta per dimensione del labirinto
+    private final float[] rowDistance2;
+    private final float[] colDistance2;
+    private final float rampScale;
+    
+    // Zoom: pixel per cella. Da DETAIL_MIN in su si disegnano i muri veri e propri,
+    // sotto si usa la piramide di immagini ridotte
+    private int zoomLevel = DEFAULT_ZOOM;
+    private double scale;
+    private int cellSize;
+    
+    private WallGeometry wallGeometry;
+    private TilePyramid pyramid;
+    
+    private static final double[] ZOOM_LEVELS = {40, 32, 25, 16, 12, 8, 6, 4, 2, 1, 0.5, 0.25, 0.125, 0.0625, 0.03125, 0.015625};
+    private static final int DEFAULT_ZOOM = 2;
+    static final int BASE_CELL_SIZE = (int) ZOOM_LEVELS[DEFAULT_ZOOM];
+    private static final int FIT_PIXELS = 1280;                   // Un labirinto piu' grande parte gia' ridotto
+    private static final double DETAIL_MIN = 6;
+    private static final int MIN_OVERVIEW_PIXELS = 256;           // Non si riduce oltre questa dimensione del lato maggiore
+    private static final long TILE_BUDGET_NANOS = 8_000_000L;     // Tempo massimo per calcolare tile in un frame
+    static final int WALL_THICKNESS = 2;
+    static final int LAYER_PADDING = 16;                  // Spazio per ombra e frecce attorno al labirinto
+    private static final long MAX_LAYER_PIXELS = 4096L * 4096L;   // Oltre questa soglia si disegna senza cache
     
     // Design
-    private static final Color WALL_COLOR = new Color(17, 24, 39);         // Grigio 900 - Muri
-    private static final Color BACKGROUND = new Color(255, 255, 255);      // Bianco
-    private static final Color VISITED_PRIMARY = new Color(59, 130, 246, 100);   // Blu 500 - Celle visitate (più opaco)
-    private static final Color VISITED_SECONDARY = new Color(147, 197, 253, 60); // Blu 300 - Punto finale del gradiente (più opaco)
-    private static final Color SHADOW = new Color(0, 0, 0, 8);             // Ombra
-    private static final Color BORDER = new Color(229, 231, 235);          // Grigio 200 - Bordo
-    private static final Color START_COLOR = new Color(34, 197, 94);       // Verde 500 - Punto di inizio
-    private static final Color END_COLOR = new Color(239, 68, 68);         // Rosso 500 - Punto di fine
-    private static final Color ENTRANCE_COLOR = new Color(59, 130, 246);   // Blu 500 - Entrata/Uscita
+    static final Color WALL_COLOR = new Color(17, 24, 39);         // Grigio 900 - Muri
+    static final Color BACKGROUND = new Color(255, 255, 255);      // Bianco
+    static final Color VISITED_PRIMARY = new Color(59, 130, 246, 100);   // Blu 500 - Celle visitate (più opaco)
+    static final Color VISITED_SECONDARY = new Color(147, 197, 253, 60); // Blu 300 - Punto finale del gradiente (più opaco)
+    static final Color SHADOW = new Color(0, 0, 0, 8);             // Ombra
+    static final Color BORDER = new Color(229, 231, 235);          // Grigio 200 - Bordo
+    static final Color START_COLOR = new Color(34, 197, 94);       // Verde 500 - Punto di inizio
+    static final Color END_COLOR = new Color(239, 68, 68);         // Rosso 500 - Punto di fine
+    static final Color ENTRANCE_COLOR = new Color(59, 130, 246);   // Blu 500 - Entrata/Uscita
+    static final Color SOLUTION_COLOR = new Color(245, 158, 11);   // Ambra 500 - Percorso risolto
+    
+    // Rampa del gradiente delle celle visitate, indicizzata con la distanza al quadrato dal centro
+    // (normalizzata): niente sqrt ne' nuovi Color durante il disegno
+    private static final int RAMP_STEPS = 4096;
+    private static final Color[] VISITED_RAMP = createVisitedRamp();
 
     public MazePanel(Maze maze) {
+        this(maze, true);
+    }
+    
+    // fit = false tiene la cella di base (25 px) a qualunque dimensione: e' il caso dell'esportazione,
+    // che non deve dipendere da quanto sta sullo schermo
+    public MazePanel(Maze maze, boolean fit) {
         this.maze = maze;
         setBackground(new Color(249, 250, 251)); // Grigio 50
+        
+        float centerX = maze.getCols() / 2.0f;
+        float centerY = maze.getRows() / 2.0f;
+        colDistance2 = new float[maze.getCols()];
+        for (int c = 0; c < colDistance2.length; c++) colDistance2[c] = (c - centerX) * (c - centerX);
+        rowDistance2 = new float[maze.getRows()];
+        for (int r = 0; r < rowDistance2.length; r++) rowDistance2[r] = (r - centerY) * (r - centerY);
+        rampScale = (RAMP_STEPS - 1) / (centerX * centerX + centerY * centerY);
+        
+        // Il primo livello sotto quello predefinito con cui il labirinto sta tutto in FIT_PIXELS
+        int largest = Math.max(maze.getRows(), maze.getCols());
+        while (fit && zoomLevel < ZOOM_LEVELS.length - 1 && largest * ZOOM_LEVELS[zoomLevel] > FIT_PIXELS) zoomLevel++;
+        scale = ZOOM_LEVELS[zoomLevel];
+        cellSize = (int) Math.max(1, scale);
+        wallGeometry = new WallGeometry(maze, cellSize, WALL_THICKNESS);
+    }
+    
+    public double getScale() {
+        return scale;
+    }
+    
+    public boolean canZoomIn() {
+        return zoomLevel > 0;
+    }
+    
+    public boolean canZoomOut() {
+        return zoomLevel < ZOOM_LEVELS.length - 1
+            && Math.max(maze.getRows(), maze.getCols()) * ZOOM_LEVELS[zoomLevel + 1] >= MIN_OVERVIEW_PIXELS;
+    }
+    
+    // Cambia zoom di 'steps' livelli (positivi = ingrandisce) tenendo fermo il punto 'anchor' del pannello
+    public void zoom(int steps, Point anchor) {
+        int target = zoomLevel;
+        while (steps > 0 && target > 0) {
+            target--;
+            steps--;
+        }
+        while (steps < 0 && target < ZOOM_LEVELS.length - 1
+               && Math.max(maze.getRows(), maze.getCols()) * ZOOM_LEVELS[target + 1] >= MIN_OVERVIEW_PIXELS) {
+            target++;
+            steps++;
+        }
+        if (target == zoomLevel) return;
+        
+        // Posizione del punto in celle, prima del cambio
+        double anchorCol = (anchor.x - getOffsetX()) / scale;
+        double anchorRow = (anchor.y - getOffsetY()) / scale;
+        
+        zoomLevel = target;
+        scale = ZOOM_LEVELS[target];
+        cellSize = (int) Math.max(1, scale);
+        wallGeometry = new WallGeometry(maze, cellSize, WALL_THICKNESS);
+        layer = null;
+        dirtyRegion.setBounds(0, 0, 0, 0);
+        
+        // Si ridimensiona subito, per poter riportare il punto sotto la stessa posizione della vista
+        revalidate();
+        JScrollPane scrollPane = (JScrollPane) SwingUtilities.getAncestorOfClass(JScrollPane.class, this);
+        if (scrollPane != null) {
+            JViewport viewport = scrollPane.getViewport();
+            Point view = viewport.getViewPosition();
+            int dx = anchor.x - view.x, dy = anchor.y - view.y;
+            scrollPane.validate();
+            int x = (int) Math.round(getOffsetX() + anchorCol * scale) - dx;
+            int y = (int) Math.round(getOffsetY() + anchorRow * scale) - dy;
+            Dimension extent = viewport.getExtentSize();
+            x = Math.max(0, Math.min(x, getWidth() - extent.width));
+            y = Math.max(0, Math.min(y, getHeight() - extent.height));
+            viewport.setViewPosition(new Point(x, y));
+        }
+        repaint();
+    }
+
+    // Le celle indicate (estremi inclusi) sono cambiate: si aggiorna solo quella parte della cache
+    // e si ridisegna solo quel rettangolo, con un margine per lo spessore dei muri condivisi
+    public void repaintCells(int minRow, int minCol, int maxRow, int maxCol) {
+        wallGeometry.cellsChanged(minRow, minCol, maxRow, maxCol);
+        if (pyramid != null) pyramid.cellsChanged(minRow, minCol, maxRow, maxCol);
+        
+        if (scale < DETAIL_MIN) {
+            // Il marcatore della cella corrente e' piu' grande delle celle ridotte
+            int margin = 6;
+            int x = (int) Math.floor(minCol * scale) - margin;
+            int y = (int) Math.floor(minRow * scale) - margin;
+            int width = (int) Math.ceil((maxCol + 1) * scale) - x + margin;
+            int height = (int) Math.ceil((maxRow + 1) * scale) - y + margin;
+            repaint(getOffsetX() + x, getOffsetY() + y, width, height);
+            return;
+        }
+        
+        int margin = WALL_THICKNESS;
+        int x = minCol * cellSize - margin;
+        int y = minRow * cellSize - margin;
+        int width = (maxCol - minCol + 1) * cellSize + 2 * margin;
+        int height = (maxRow - minRow + 1) * cellSize + 2 * margin;
+        
+        Rectangle changed = new Rectangle(x + LAYER_PADDING, y + LAYER_PADDING, width, height);
+        if (dirtyRegion.isEmpty()) {
+            dirtyRegion.setBounds(changed);
+        } else {
+            dirtyRegion.add(changed);
+        }
+        repaint(getOffsetX() + x, getOffsetY() + y, width, height);
+    }
+    
+    // Il labirinto e' cambiato per intero (reset, riavvolgimento, caricamento)
+    public void mazeChanged() {
+        wallGeometry.invalidate();
+        if (pyramid != null) pyramid.clear();
+        layerValid = false;
+        repaint();
+    }
+
+    // Percorso da sovrapporre al labirinto, come indici r * cols + c (null per toglierlo)
+    public void setSolution(int[] path) {
+        solution = path;
+        repaint();
+    }
+    
+    public int[] getSolution() {
+        return solution;
+    }
+    
+    // Cella su cui si trova l'animazione (-1 se nessuna)
+    public void setCurrentCell(int row, int col) {
+        currentRow = row;
+        currentCol = col;
     }
 
     @Override
@@ -34,19 +207,164 @@ public class MazePanel extends JPanel {
         g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
         
         // Centra la posizione
-        int mazeWidth = maze.getCols() * CELL_SIZE;
-        int mazeHeight = maze.getRows() * CELL_SIZE;
-        int offsetX = (getWidth() - mazeWidth) / 2;
-        int offsetY = (getHeight() - mazeHeight) / 2;
+        int offsetX = getOffsetX();
+        int offsetY = getOffsetY();
+        
+        MazeEvents.Paint event = new MazeEvents.Paint();
+        event.begin();
+        String mode;
+        if (scale < DETAIL_MIN) {
+            paintOverview(g2, offsetX, offsetY);
+            mode = "panoramica";
+        } else if (paintFromLayer(g2, offsetX, offsetY)) {
+            mode = "cache";
+        } else {
+            drawMazeContent(g2, offsetX, offsetY);
+            mode = "dettaglio";
+        }
+        drawSolution(g2, offsetX, offsetY);
+        drawCurrentCell(g2, offsetX, offsetY);
+        
+        if (event.shouldCommit()) {
+            Rectangle clip = g2.getClipBounds();
+            event.mode = mode;
+            event.cells = visibleCells(clip, offsetX, offsetY);
+            event.clipWidth = clip.width;
+            event.clipHeight = clip.height;
+            event.commit();
+        }
+        g2.dispose();
+    }
+    
+    // Celle del labirinto che cadono nel clip, a qualunque scala
+    private long visibleCells(Rectangle clip, int offsetX, int offsetY) {
+        long rows = Math.min(maze.getRows(), (long) Math.ceil((clip.y + clip.height - offsetY) / scale))
+                  - Math.max(0, (long) Math.floor((clip.y - offsetY) / scale));
+        long cols = Math.min(maze.getCols(), (long) Math.ceil((clip.x + clip.width - offsetX) / scale))
+                  - Math.max(0, (long) Math.floor((clip.x - offsetX) / scale));
+        return Math.max(0, rows) * Math.max(0, cols);
+    }
+    
+    // Disegna labirinto e percorso in un Graphics qualsiasi, limitandosi al clip: l'esportazione
+    // lo chiama una striscia alla volta, con gli stessi colori e le stesse forme del pannello
+    public void paintMaze(Graphics2D g2, int offsetX, int offsetY) {
+        drawMazeContent(g2, offsetX, offsetY);
+        drawSolution(g2, offsetX, offsetY);
+    }
+    
+    // Renderizzazione dei Layers statici
+    private void drawMazeContent(Graphics2D g2, int offsetX, int offsetY) {
+        int mazeWidth = maze.getCols() * cellSize;
+        int mazeHeight = maze.getRows() * cellSize;
         
-        // Renderizzazione dei Layers
         drawMazeBackground(g2, offsetX, offsetY, mazeWidth, mazeHeight);
         drawVisitedCells(g2, offsetX, offsetY);
         drawWalls(g2, offsetX, offsetY);
         drawEntranceAndExit(g2, offsetX, offsetY);
         drawStartEndMarkers(g2, offsetX, offsetY);
+    }
+    
+    // Copia la cache sul pannello, dopo averla creata o aggiornata se serve; false se la cache non si usa
+    private boolean paintFromLayer(Graphics2D g2, int offsetX, int offsetY) {
+        long width = (long) maze.getCols() * cellSize + 2 * LAYER_PADDING;
+        long height = (long) maze.getRows() * cellSize + 2 * LAYER_PADDING;
+        if (width * height > MAX_LAYER_PIXELS) return false;
         
-        g2.dispose();
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        do {
+            if (layer == null) {
+                // Immagine accelerata quando c'e' uno schermo, altrimenti (headless) una BufferedImage
+                layer = gc != null ? gc.createCompatibleVolatileImage((int) width, (int) height)
+                                   : new BufferedImage((int) width, (int) height, BufferedImage.TYPE_INT_RGB);
+                layerValid = false;
+            }
+            if (layer instanceof VolatileImage && gc != null) {
+                int status = ((VolatileImage) layer).validate(gc);
+                if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                    layer = null;
+                    continue;
+                }
+                if (status == VolatileImage.IMAGE_RESTORED) layerValid = false;
+            }
+            
+            if (!layerValid) {
+                renderLayer(new Rectangle(0, 0, (int) width, (int) height));
+                layerValid = true;
+            } else if (!dirtyRegion.isEmpty()) {
+                renderLayer(dirtyRegion);
+            }
+            dirtyRegion.setBounds(0, 0, 0, 0);
+            
+            g2.drawImage(layer, offsetX - LAYER_PADDING, offsetY - LAYER_PADDING, null);
+        } while (layer == null || (layer instanceof VolatileImage && ((VolatileImage) layer).contentsLost()));
+        return true;
+    }
+    
+    private void renderLayer(Rectangle region) {
+        Graphics2D lg = (Graphics2D) layer.getGraphics();
+        lg.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        lg.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+        lg.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        
+        lg.clip(region);
+        lg.setColor(getBackground());
+        lg.fill(region);
+        drawMazeContent(lg, LAYER_PADDING, LAYER_PADDING);
+        lg.dispose();
+    }
+    
+    // Vista ridotta: tile della piramide al livello che ha circa un pixel della tile per pixel dello schermo.
+    // Le tile mancanti si calcolano entro un budget per frame, le restanti nei frame successivi
+    private void paintOverview(Graphics2D g2, int offsetX, int offsetY) {
+        int mazeWidth = getMazeWidth();
+        int mazeHeight = getMazeHeight();
+        g2.setColor(BACKGROUND);
+        g2.fillRect(offsetX, offsetY, mazeWidth, mazeHeight);
+        
+        if (pyramid == null) {
+            int[] visitedRgb = createOpaqueRamp();
+            pyramid = new TilePyramid(maze, WALL_COLOR.getRGB(), BACKGROUND.getRGB(), BACKGROUND.getRGB(),
+                (r, c) -> visitedRgb[Math.min(RAMP_STEPS - 1, (int) ((colDistance2[c] + rowDistance2[r]) * rampScale))]);
+        }
+        int level = Math.max(0, 1 - Math.getExponent(scale));
+        int cellsPerTile = TilePyramid.cellsPerTile(level);
+        double tileSize = cellsPerTile * scale;
+        
+        Rectangle clip = g2.getClipBounds();
+        int firstX = Math.max(0, (int) Math.floor((clip.x - offsetX) / tileSize));
+        int lastX = Math.min((maze.getCols() - 1) / cellsPerTile, (int) Math.floor((clip.x + clip.width - offsetX) / tileSize));
+        int firstY = Math.max(0, (int) Math.floor((clip.y - offsetY) / tileSize));
+        int lastY = Math.min((maze.getRows() - 1) / cellsPerTile, (int) Math.floor((clip.y + clip.height - offsetY) / tileSize));
+        
+        Shape oldClip = g2.getClip();
+        g2.clipRect(offsetX, offsetY, mazeWidth, mazeHeight);
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        long deadline = System.nanoTime() + TILE_BUDGET_NANOS;
+        boolean missing = false;
+        for (int ty = firstY; ty <= lastY; ty++) {
+            for (int tx = firstX; tx <= lastX; tx++) {
+                BufferedImage tile = pyramid.getTile(level, tx, ty);
+                if (tile == null) {
+                    if (System.nanoTime() > deadline) {
+                        missing = true;
+                        continue;
+                    }
+                    tile = pyramid.buildTile(level, tx, ty);
+                }
+                int x = offsetX + (int) Math.round(tx * tileSize);
+                int y = offsetY + (int) Math.round(ty * tileSize);
+                int size = (int) Math.round(tileSize);
+                g2.drawImage(tile, x, y, size, size, null);
+            }
+        }
+        g2.setClip(oldClip);
+        
+        g2.setColor(WALL_COLOR);
+        g2.setStroke(new BasicStroke(1));
+        g2.drawRect(offsetX, offsetY, mazeWidth, mazeHeight);
+        drawStartEndMarkers(g2, offsetX, offsetY);
+        
+        if (missing) repaint();
     }
     
     private void drawMazeBackground(Graphics2D g2, int offsetX, int offsetY, int mazeWidth, int mazeHeight) {
@@ -65,55 +383,47 @@ public class MazePanel extends JPanel {
     }
     
     private void drawVisitedCells(Graphics2D g2, int offsetX, int offsetY) {
-        for (int r = 0; r < maze.getRows(); r++) {
-            for (int c = 0; c < maze.getCols(); c++) {
-                Cell cell = maze.getCell(r, c);
-                if (cell.isVisited()) {
-                    int x = offsetX + c * CELL_SIZE;
-                    int y = offsetY + r * CELL_SIZE;
+        // Solo le celle che intersecano l'area da ridisegnare
+        Rectangle clip = g2.getClipBounds();
+        int firstRow = firstVisible(clip.y, offsetY), lastRow = lastVisible(clip.y + clip.height, offsetY, maze.getRows());
+        int firstCol = firstVisible(clip.x, offsetX), lastCol = lastVisible(clip.x + clip.width, offsetX, maze.getCols());
+        
+        Color current = null;
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstCol; c <= lastCol; c++) {
+                if (maze.isVisited(r, c)) {
+                    int x = offsetX + c * cellSize;
+                    int y = offsetY + r * cellSize;
                     
                     // Gradiente dal centro ai bordi
-                    float centerX = maze.getCols() / 2.0f;
-                    float centerY = maze.getRows() / 2.0f;
-                    float maxDistance = (float) Math.sqrt(centerX * centerX + centerY * centerY);
-                    float distance = (float) Math.sqrt((c - centerX) * (c - centerX) + (r - centerY) * (r - centerY));
-                    float factor = Math.min(1.0f, distance / maxDistance);
-                    
-                    Color cellColor = interpolateColor(VISITED_PRIMARY, VISITED_SECONDARY, factor);
+                    int index = Math.min(RAMP_STEPS - 1, (int) ((colDistance2[c] + rowDistance2[r]) * rampScale));
+                    Color cellColor = VISITED_RAMP[index];
                     
                     // Colorazione cella
-                    g2.setColor(cellColor);
-                    g2.fillRect(x + 1, y + 1, CELL_SIZE - 2, CELL_SIZE - 2);
+                    if (cellColor != current) {
+                        g2.setColor(cellColor);
+                        current = cellColor;
+                    }
+                    g2.fillRect(x + 1, y + 1, cellSize - 2, cellSize - 2);
                 }
             }
         }
     }
     
     private void drawWalls(Graphics2D g2, int offsetX, int offsetY) {
+        Rectangle clip = g2.getClipBounds();
+        int firstRow = firstVisible(clip.y, offsetY), lastRow = lastVisible(clip.y + clip.height, offsetY, maze.getRows());
+        int firstCol = firstVisible(clip.x, offsetX), lastCol = lastVisible(clip.x + clip.width, offsetX, maze.getCols());
+        if (firstRow > lastRow || firstCol > lastCol) return;
+        
+        // Muri come tratti gia' fusi e allineati ai pixel: l'antialiasing non cambierebbe nulla
+        Object antialiasing = g2.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
         g2.setColor(WALL_COLOR);
-        g2.setStroke(new BasicStroke(WALL_THICKNESS, BasicStroke.CAP_SQUARE, BasicStroke.JOIN_MITER));
-        
-        for (int r = 0; r < maze.getRows(); r++) {
-            for (int c = 0; c < maze.getCols(); c++) {
-                Cell cell = maze.getCell(r, c);
-                int x = offsetX + c * CELL_SIZE;
-                int y = offsetY + r * CELL_SIZE;
-                
-                // Disegna i muri
-                if (cell.top) {
-                    g2.drawLine(x, y, x + CELL_SIZE, y);
-                }
-                if (cell.right) {
-                    g2.drawLine(x + CELL_SIZE, y, x + CELL_SIZE, y + CELL_SIZE);
-                }
-                if (cell.bottom) {
-                    g2.drawLine(x, y + CELL_SIZE, x + CELL_SIZE, y + CELL_SIZE);
-                }
-                if (cell.left) {
-                    g2.drawLine(x, y, x, y + CELL_SIZE);
-                }
-            }
-        }
+        g2.translate(offsetX, offsetY);
+        wallGeometry.draw(g2, firstRow, lastRow, firstCol, lastCol);
+        g2.translate(-offsetX, -offsetY);
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiasing);
     }
     
     private void drawEntranceAndExit(Graphics2D g2, int offsetX, int offsetY) {
@@ -121,13 +431,13 @@ public class MazePanel extends JPanel {
         g2.setStroke(new BasicStroke(WALL_THICKNESS + 1, BasicStroke.CAP_SQUARE, BasicStroke.JOIN_MITER));
         
         // Entrata del labirinto
-        int entranceSize = CELL_SIZE / 2;
-        int entranceOffset = (CELL_SIZE - entranceSize) / 2;
+        int entranceSize = cellSize / 2;
+        int entranceOffset = (cellSize - entranceSize) / 2;
         g2.drawLine(offsetX, offsetY + entranceOffset, offsetX, offsetY + entranceOffset + entranceSize);
         
         // Uscita del labirinto
-        int exitX = offsetX + (maze.getCols() - 1) * CELL_SIZE + CELL_SIZE;
-        int exitY = offsetY + (maze.getRows() - 1) * CELL_SIZE;
+        int exitX = offsetX + (maze.getCols() - 1) * cellSize + cellSize;
+        int exitY = offsetY + (maze.getRows() - 1) * cellSize;
         g2.drawLine(exitX, exitY + entranceOffset, exitX, exitY + entranceOffset + entranceSize);
         
         g2.setColor(ENTRANCE_COLOR);
@@ -135,30 +445,30 @@ public class MazePanel extends JPanel {
         
         // Freccia entrata
         int arrowX = offsetX - 12;
-        int arrowY = offsetY + CELL_SIZE / 2;
+        int arrowY = offsetY + cellSize / 2;
         g2.drawLine(arrowX, arrowY, arrowX + 6, arrowY);
         g2.drawLine(arrowX + 3, arrowY - 2, arrowX + 6, arrowY);
         g2.drawLine(arrowX + 3, arrowY + 2, arrowX + 6, arrowY);
         
         // Freccia uscita
         int exitArrowX = exitX + 6;
-        int exitArrowY = exitY + CELL_SIZE / 2;
+        int exitArrowY = exitY + cellSize / 2;
         g2.drawLine(exitArrowX, exitArrowY, exitArrowX + 6, exitArrowY);
         g2.drawLine(exitArrowX + 3, exitArrowY - 2, exitArrowX + 6, exitArrowY);
         g2.drawLine(exitArrowX + 3, exitArrowY + 2, exitArrowX + 6, exitArrowY);
     }
     
     private void drawStartEndMarkers(Graphics2D g2, int offsetX, int offsetY) {
-        int startX = offsetX + CELL_SIZE / 2;
-        int startY = offsetY + CELL_SIZE / 2;
+        int startX = offsetX + (int) (scale / 2);
+        int startY = offsetY + (int) (scale / 2);
         
         g2.setColor(START_COLOR);
         g2.fillOval(startX - 6, startY - 6, 12, 12);
         g2.setColor(BACKGROUND);
         g2.fillOval(startX - 3, startY - 3, 6, 6);
         
-        int endX = offsetX + (maze.getCols() - 1) * CELL_SIZE + CELL_SIZE / 2;
-        int endY = offsetY + (maze.getRows() - 1) * CELL_SIZE + CELL_SIZE / 2;
+        int endX = offsetX + (int) ((maze.getCols() - 0.5) * scale);
+        int endY = offsetY + (int) ((maze.getRows() - 0.5) * scale);
         
         g2.setColor(END_COLOR);
         g2.fillOval(endX - 6, endY - 6, 12, 12);
@@ -166,7 +476,107 @@ public class MazePanel extends JPanel {
         g2.fillOval(endX - 3, endY - 3, 6, 6);
     }
     
-    private Color interpolateColor(Color start, Color end, float factor) {
+    // Il percorso non fa parte della cache: si disegnano solo i punti vicini al clip
+    // e, nei tratti dritti, solo gli angoli
+    private void drawSolution(Graphics2D g2, int offsetX, int offsetY) {
+        if (solution == null || solution.length == 0) return;
+        
+        Rectangle clip = g2.getClipBounds();
+        Path2D.Float line = new Path2D.Float();
+        boolean open = false;
+        for (int i = 0; i < solution.length; i++) {
+            boolean keep = isNearClip(solution[i], clip, offsetX, offsetY)
+                || (i > 0 && isNearClip(solution[i - 1], clip, offsetX, offsetY))
+                || (i + 1 < solution.length && isNearClip(solution[i + 1], clip, offsetX, offsetY));
+            if (!keep) {
+                open = false;
+                continue;
+            }
+            
+            float x = (float) (offsetX + (solution[i] % maze.getCols() + 0.5) * scale);
+            float y = (float) (offsetY + (solution[i] / maze.getCols() + 0.5) * scale);
+            if (!open) {
+                line.moveTo(x, y);
+                open = true;
+            } else if (i + 1 == solution.length || solution[i + 1] - solution[i] != solution[i] - solution[i - 1]
+                       || !isNearClip(solution[i + 1], clip, offsetX, offsetY)) {
+                line.lineTo(x, y);
+            }
+        }
+        
+        g2.setColor(SOLUTION_COLOR);
+        g2.setStroke(new BasicStroke((float) Math.max(1.5, scale / 4), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        g2.draw(line);
+    }
+    
+    private boolean isNearClip(int cell, Rectangle clip, int offsetX, int offsetY) {
+        double x = offsetX + (cell % maze.getCols() + 0.5) * scale;
+        double y = offsetY + (cell / maze.getCols() + 0.5) * scale;
+        double margin = scale + 2;
+        return x >= clip.x - margin && x <= clip.x + clip.width + margin
+            && y >= clip.y - margin && y <= clip.y + clip.height + margin;
+    }
+    
+    private void drawCurrentCell(Graphics2D g2, int offsetX, int offsetY) {
+        if (currentRow < 0) return;
+        
+        int x = offsetX + (int) ((currentCol + 0.5) * scale);
+        int y = offsetY + (int) ((currentRow + 0.5) * scale);
+        g2.setColor(ENTRANCE_COLOR);
+        g2.fillOval(x - 4, y - 4, 8, 8);
+    }
+    
+    private int getOffsetX() {
+        return (getWidth() - getMazeWidth()) / 2;
+    }
+    
+    private int getOffsetY() {
+        return (getHeight() - getMazeHeight()) / 2;
+    }
+    
+    private int getMazeWidth() {
+        return (int) Math.ceil(maze.getCols() * scale);
+    }
+    
+    private int getMazeHeight() {
+        return (int) Math.ceil(maze.getRows() * scale);
+    }
+    
+    // Prima e ultima riga (o colonna) che intersecano l'intervallo di pixel del clip
+    private int firstVisible(int clipStart, int offset) {
+        return Math.max(0, Math.floorDiv(clipStart - offset, cellSize) - 1);
+    }
+    
+    private int lastVisible(int clipEnd, int offset, int count) {
+        return Math.min(count - 1, Math.floorDiv(clipEnd - offset, cellSize) + 1);
+    }
+    
+    // La rampa gia' composta sullo sfondo, come pixel opachi per la piramide
+    private static int[] createOpaqueRamp() {
+        int[] ramp = new int[RAMP_STEPS];
+        for (int i = 0; i < RAMP_STEPS; i++) {
+            Color color = VISITED_RAMP[i];
+            float alpha = color.getAlpha() / 255f;
+            int r = Math.round(color.getRed() * alpha + BACKGROUND.getRed() * (1 - alpha));
+            int g = Math.round(color.getGreen() * alpha + BACKGROUND.getGreen() * (1 - alpha));
+            int b = Math.round(color.getBlue() * alpha + BACKGROUND.getBlue() * (1 - alpha));
+            ramp[i] = (r << 16) | (g << 8) | b;
+        }
+        return ramp;
+    }
+    
+    private static Color[] createVisitedRamp() {
+        Color[] ramp = new Color[RAMP_STEPS];
+        for (int i = 0; i < RAMP_STEPS; i++) {
+            float factor = (float) Math.sqrt(i / (float) (RAMP_STEPS - 1));
+            Color color = interpolateColor(VISITED_PRIMARY, VISITED_SECONDARY, factor);
+            // Passi vicini danno spesso lo stesso colore: si riusa l'istanza precedente
+            ramp[i] = i > 0 && color.equals(ramp[i - 1]) ? ramp[i - 1] : color;
+        }
+        return ramp;
+    }
+    
+    private static Color interpolateColor(Color start, Color end, float factor) {
         factor = Math.max(0, Math.min(1, factor));
         
         int r = (int) (start.getRed() + factor * (end.getRed() - start.getRed()));
@@ -180,8 +590,8 @@ public class MazePanel extends JPanel {
     @Override
     public Dimension getPreferredSize() {
         return new Dimension(
-            maze.getCols() * CELL_SIZE + 60,
-            maze.getRows() * CELL_SIZE + 60
+            getMazeWidth() + 60,
+            getMazeHeight() + 60
         );
     }
 }
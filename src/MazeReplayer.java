@@ -0,0 +1,229 @@
+import javax.swing.Timer;
+import java.awt.DisplayMode;
+import java.awt.GraphicsEnvironment;
+import java.util.function.IntConsumer;
+
+// Riproduce un CarveLog sul labirinto mostrato da MazePanel alla velocita' scelta,
+// con pausa, passo singolo, ricerca di una posizione, avanti veloce e riavvolgimento.
+// Puo' anche partire dal vivo, mentre la generazione e' in corso, prelevando gli eventi da una CarveEventRing:
+// finita la generazione si passa al registro completo dalla stessa posizione (attachLog).
+// Il labirinto mostrato e' solo della riproduzione, sull'EDT; a ogni frame si applicano fino a 'speed' celle
+// e si ridisegna una volta sola il rettangolo che le contiene.
+public class MazeReplayer {
+    static final int FRAME_DELAY = frameDelay();   // Un passo per aggiornamento dello schermo
+    static final int MAX_SPEED = 1024;              // Limite dell'avanti veloce
+    static final int INSTANT = Integer.MAX_VALUE;   // Tutti gli eventi disponibili in un solo frame
+
+    private final Maze maze;
+    private final MazePanel panel;
+    private CarveLog log;          // null finche' si riproduce dal vivo
+    private CarveEventRing ring;   // null se si riproduce dal registro
+    private final Timer timer;
+
+    private int position;
+    private int currentCell = -1;
+    private int speed = 1;     // Celle scavate per passo
+    private int direction = 1; // 1 in avanti, -1 all'indietro
+    private IntConsumer progressListener;
+    private Runnable finishListener;
+
+    public MazeReplayer(Maze maze, MazePanel panel, CarveLog log) {
+        if (maze.getRows() != log.getRows() || maze.getCols() != log.getCols()) {
+            throw new IllegalArgumentException("Il registro non corrisponde alle dimensioni del labirinto");
+        }
+        this.maze = maze;
+        this.panel = panel;
+        this.log = log;
+        this.timer = new Timer(FRAME_DELAY, e -> tick());
+        this.position = log.size(); // Il labirinto contiene gia' il risultato della generazione
+    }
+
+    // Dal vivo: il labirinto deve essere vuoto, gli eventi arrivano dall'anello mentre la generazione procede
+    public MazeReplayer(Maze maze, MazePanel panel, CarveEventRing ring) {
+        this.maze = maze;
+        this.panel = panel;
+        this.ring = ring;
+        this.timer = new Timer(FRAME_DELAY, e -> tick());
+    }
+
+    // La generazione e' finita: gli eventi successivi a quelli gia' applicati si leggono dal registro
+    public void attachLog(CarveLog log) {
+        if (maze.getRows() != log.getRows() || maze.getCols() != log.getCols() || position > log.size()) {
+            throw new IllegalArgumentException("Il registro non corrisponde alla riproduzione");
+        }
+        this.log = log;
+        this.ring = null;
+    }
+
+    public boolean isLive() { return log == null; }
+    public CarveLog getLog() { return log; }
+    public int getPosition() { return position; }
+    public int getSpeed() { return speed; }
+    public boolean isPlaying() { return timer.isRunning(); }
+
+    public void setProgressListener(IntConsumer listener) { this.progressListener = listener; }
+    public void setFinishListener(Runnable listener) { this.finishListener = listener; }
+
+    // Riproduce dall'inizio
+    public void start() {
+        seek(0);
+        play();
+    }
+
+    public void play() {
+        direction = 1;
+        if (log != null && position == log.size()) seek(0);
+        timer.start();
+    }
+
+    public void pause() {
+        timer.stop();
+    }
+
+    public void rewind() {
+        if (log == null) return;
+        direction = -1;
+        timer.start();
+    }
+
+    // Ogni chiamata raddoppia la velocita' fino a MAX_SPEED (se non e' gia' oltre)
+    public void fastForward() {
+        if (speed < MAX_SPEED) speed = Math.min(MAX_SPEED, speed * 2);
+        direction = 1;
+        timer.start();
+    }
+
+    // Una sola cella scavata in avanti, poi resta fermo
+    public void step() {
+        timer.stop();
+        direction = 1;
+        advance(1);
+    }
+
+    // Celle per frame, da 1 a INSTANT
+    public void setSpeed(int speed) {
+        this.speed = Math.max(1, speed);
+    }
+
+    public void stop() {
+        timer.stop();
+        currentCell = -1;
+        panel.setCurrentCell(-1, -1);
+        panel.mazeChanged();
+    }
+
+    // Porta il labirinto allo stato dopo i primi 'target' eventi; tornare indietro riparte da zero.
+    // Avanzando si ridisegna solo il rettangolo che contiene le celle cambiate, una volta per passo.
+    public void seek(int target) {
+        if (log == null) return;   // Dal vivo si puo' solo andare avanti
+        target = Math.max(0, Math.min(log.size(), target));
+        boolean fullRepaint = target < position;
+        if (fullRepaint) {
+            maze.reset();
+            position = 0;
+        }
+
+        int cols = log.getCols();
+        int minRow = Integer.MAX_VALUE, minCol = Integer.MAX_VALUE, maxRow = -1, maxCol = -1;
+        if (currentCell >= 0) {
+            minRow = maxRow = currentCell / cols;
+            minCol = maxCol = currentCell % cols;
+        }
+        if (!fullRepaint) {
+            for (int i = position; i < target; i++) {
+                int event = log.getEvent(i);
+                if (CarveLog.codeOf(event) == CarveLog.BACKTRACK) continue;
+                int r = CarveLog.cellOf(event) / cols, c = CarveLog.cellOf(event) % cols;
+                minRow = Math.min(minRow, r);
+                maxRow = Math.max(maxRow, r);
+                minCol = Math.min(minCol, c);
+                maxCol = Math.max(maxCol, c);
+            }
+        }
+
+        log.apply(maze.getStorage(), position, target);
+        position = target;
+
+        currentCell = position > 0 && position < log.size() ? CarveLog.cellOf(log.getEvent(position - 1)) : -1;
+        if (currentCell >= 0) {
+            panel.setCurrentCell(currentCell / cols, currentCell % cols);
+            minRow = Math.min(minRow, currentCell / cols);
+            maxRow = Math.max(maxRow, currentCell / cols);
+            minCol = Math.min(minCol, currentCell % cols);
+            maxCol = Math.max(maxCol, currentCell % cols);
+        } else {
+            panel.setCurrentCell(-1, -1);
+        }
+
+        if (fullRepaint) {
+            panel.mazeChanged();
+        } else if (maxRow >= 0) {
+            // Un muro aperto verso la cella vicina resta entro il margine del rettangolo
+            panel.repaintCells(minRow, minCol, maxRow, maxCol);
+        }
+        if (progressListener != null) progressListener.accept(position);
+    }
+
+    private void tick() {
+        advance(speed);
+
+        if (log != null && (direction > 0 ? position == log.size() : position == 0)) {
+            timer.stop();
+            if (direction > 0 && finishListener != null) finishListener.run();
+        }
+    }
+
+    // Avanza (o arretra) di 'cells' celle scavate; i ritorni indietro della DFS non consumano passi
+    private void advance(int cells) {
+        if (log == null) {
+            advanceLive(cells);
+            return;
+        }
+        int target = position;
+        int carved = 0;
+        while (carved < cells && (direction > 0 ? target < log.size() : target > 0)) {
+            int event = log.getEvent(direction > 0 ? target : target - 1);
+            target += direction;
+            if (CarveLog.codeOf(event) != CarveLog.BACKTRACK) carved++;
+        }
+        seek(target);
+    }
+
+    // Dal vivo si applicano gli eventi man mano che arrivano; se l'anello e' vuoto si aspetta il frame successivo
+    private void advanceLive(int cells) {
+        int cols = maze.getCols();
+        int minRow = Integer.MAX_VALUE, minCol = Integer.MAX_VALUE, maxRow = -1, maxCol = -1;
+        if (currentCell >= 0) {
+            minRow = maxRow = currentCell / cols;
+            minCol = maxCol = currentCell % cols;
+        }
+        int carved = 0, applied = 0;
+        int event;
+        while (carved < cells && (event = ring.poll()) != CarveEventRing.EMPTY) {
+            CarveLog.applyEvent(maze.getStorage(), event);
+            position++;
+            applied++;
+            currentCell = CarveLog.cellOf(event);
+            int r = currentCell / cols, c = currentCell % cols;
+            minRow = Math.min(minRow, r);
+            maxRow = Math.max(maxRow, r);
+            minCol = Math.min(minCol, c);
+            maxCol = Math.max(maxCol, c);
+            if (CarveLog.codeOf(event) != CarveLog.BACKTRACK) carved++;
+        }
+        if (applied == 0) return;
+
+        panel.setCurrentCell(currentCell / cols, currentCell % cols);
+        panel.repaintCells(minRow, minCol, maxRow, maxCol);
+        if (progressListener != null) progressListener.accept(position);
+    }
+
+    // Frequenza dello schermo principale; 60 Hz se non si conosce o non c'e' uno schermo
+    private static int frameDelay() {
+        int hertz = DisplayMode.REFRESH_RATE_UNKNOWN;
+        if (!GraphicsEnvironment.isHeadless()) {
+            hertz = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDisplayMode().getRefreshRate();
+        }
+        return hertz > 0 ? Math.max(4, 1000 / hertz) : 16;
+    }
+}
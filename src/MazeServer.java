@@ -0,0 +1,260 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Servizio HTTP locale (solo loopback) che genera labirinti su richiesta, davanti a una MazeCache:
+//   GET /maze?rows=R&cols=C&seed=S[&algorithm=NOME][&format=binary|json|png]
+//   GET /metrics
+// Il formato binario e' quello di MazeFile; il JSON ha una stringa per riga con una cifra esadecimale
+// per cella (muri: 1 nord, 2 est, 4 sud, 8 ovest). Le risposte si scrivono in streaming.
+public class MazeServer {
+    public static final String USAGE = "Uso: java MazeServer [--port N] [--cache-mb N] [--disk-cache CARTELLA] [--disk-cache-mb N]";
+    private static final long MAX_CELLS = 1L << 24;   // 4096x4096: oltre, una richiesta terrebbe occupato il servizio
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final MazeCache cache;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private boolean virtualThreads;
+
+    public MazeServer(int port, long cacheBytes) throws IOException {
+        this(port, cacheBytes, null);
+    }
+
+    public MazeServer(int port, long cacheBytes, DiskMazeCache disk) throws IOException {
+        this.cache = new MazeCache(cacheBytes, disk);
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = newExecutor();
+        server.setExecutor(executor);
+        server.createContext("/maze", this::handleMaze);
+        server.createContext("/metrics", this::handleMetrics);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 8080;
+        long cacheMegabytes = 256;
+        Path diskDirectory = null;
+        long diskMegabytes = 1024;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                if (i + 1 >= args.length) throw new IllegalArgumentException("Valore mancante per " + args[i]);
+                switch (args[i]) {
+                    case "--port":
+                        port = Integer.parseInt(args[++i]);
+                        break;
+                    case "--cache-mb":
+                        cacheMegabytes = Long.parseLong(args[++i]);
+                        break;
+                    case "--disk-cache":
+                        diskDirectory = Paths.get(args[++i]);
+                        break;
+                    case "--disk-cache-mb":
+                        diskMegabytes = Long.parseLong(args[++i]);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Opzione sconosciuta: " + args[i]);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        DiskMazeCache disk = diskDirectory != null ? new DiskMazeCache(diskDirectory, diskMegabytes << 20) : null;
+        MazeServer server = new MazeServer(port, cacheMegabytes << 20, disk);
+        server.start();
+        System.out.printf("In ascolto su http://%s:%d (%s, cache %d MB)%n", InetAddress.getLoopbackAddress().getHostAddress(),
+                server.getPort(), server.usedVirtualThreads() ? "thread virtuali" : "pool di thread", cacheMegabytes);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    public int getPort() { return server.getAddress().getPort(); }
+    public MazeCache getCache() { return cache; }
+    public boolean usedVirtualThreads() { return virtualThreads; }
+
+    private void handleMaze(HttpExchange exchange) throws IOException {
+        long start = System.nanoTime();
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendError(exchange, 405, "Solo GET");
+                return;
+            }
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            int rows, cols;
+            long seed;
+            MazeAlgorithm algorithm;
+            String format = query.getOrDefault("format", "binary");
+            try {
+                rows = Integer.parseInt(require(query, "rows"));
+                cols = Integer.parseInt(require(query, "cols"));
+                seed = Long.parseLong(require(query, "seed"));
+                algorithm = query.containsKey("algorithm") ? MazeAlgorithms.byName(query.get("algorithm")) : MazeAlgorithms.DEPTH_FIRST;
+                if (rows < 1 || cols < 1 || (long) rows * cols > MAX_CELLS) {
+                    throw new IllegalArgumentException("Dimensioni non valide: " + rows + "x" + cols + " (massimo " + MAX_CELLS + " celle)");
+                }
+                if (!format.equals("binary") && !format.equals("json") && !format.equals("png")) {
+                    throw new IllegalArgumentException("Formato sconosciuto: " + format);
+                }
+                if (format.equals("png") && MazeExporter.pngPixels(rows, cols) > MazeExporter.MAX_PNG_PIXELS) {
+                    throw new IllegalArgumentException("Troppo grande per il PNG: " + rows + "x" + cols
+                            + " (massimo " + MazeExporter.MAX_PNG_PIXELS + " pixel a " + MazePanel.BASE_CELL_SIZE + " px per cella)");
+                }
+            } catch (NumberFormatException e) {
+                sendError(exchange, 400, "Numero non valido: " + e.getMessage());
+                return;
+            } catch (IllegalArgumentException e) {
+                sendError(exchange, 400, e.getMessage());
+                return;
+            }
+
+            Maze maze;
+            try {
+                maze = cache.get(rows, cols, seed, algorithm);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sendError(exchange, 503, "Interrotto");
+                return;
+            }
+            sendMaze(exchange, maze, algorithm, seed, format);
+        } catch (RuntimeException e) {
+            sendError(exchange, 500, e.toString());
+        } finally {
+            exchange.close();
+            latency.record(System.nanoTime() - start);
+        }
+    }
+
+    private void sendMaze(HttpExchange exchange, Maze maze, MazeAlgorithm algorithm, long seed, String format) throws IOException {
+        int algorithmId = MazeAlgorithms.all().indexOf(algorithm);
+        switch (format) {
+            case "png":
+                exchange.getResponseHeaders().set("Content-Type", "image/png");
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    MazeExporter.writePng(Channels.newChannel(body), maze, null);
+                }
+                break;
+            case "json":
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, 0);
+                try (Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8))) {
+                    writeJson(out, maze, algorithm, seed);
+                }
+                break;
+            default:
+                // Lunghezza nota in anticipo: intestazione piu' due piani
+                exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+                exchange.sendResponseHeaders(200, 32 + 2 * maze.getStorage().wordsPerPlane * Long.BYTES);
+                try (OutputStream body = exchange.getResponseBody()) {
+                    MazeFile.write(Channels.newChannel(body), maze, algorithmId, seed, false);
+                }
+        }
+    }
+
+    private static void writeJson(Writer out, Maze maze, MazeAlgorithm algorithm, long seed) throws IOException {
+        out.write("{\"rows\":" + maze.getRows() + ",\"cols\":" + maze.getCols() + ",\"algorithm\":\"" + algorithm.getName()
+                + "\",\"seed\":" + seed + ",\"cells\":[");
+        char[] row = new char[maze.getCols()];
+        for (int r = 0; r < maze.getRows(); r++) {
+            for (int c = 0; c < row.length; c++) {
+                int walls = (maze.hasTopWall(r, c) ? 1 : 0) | (maze.hasRightWall(r, c) ? 2 : 0)
+                          | (maze.hasBottomWall(r, c) ? 4 : 0) | (maze.hasLeftWall(r, c) ? 8 : 0);
+                row[c] = Character.forDigit(walls, 16);
+            }
+            out.write(r == 0 ? "\n\"" : ",\n\"");
+            out.write(row);
+            out.write('"');
+        }
+        out.write("]}\n");
+    }
+
+    private void handleMetrics(HttpExchange exchange) throws IOException {
+        try {
+            LatencyHistogram generation = cache.getGenerationTimes();
+            String json = String.format(Locale.ROOT,
+                "{\"requests\":%s,\"generation\":%s,\"cache\":{\"hits\":%d,\"misses\":%d,\"coalesced\":%d,\"diskHits\":%d,"
+                + "\"hitRatio\":%.4f,\"entries\":%d,\"bytes\":%d,\"maxBytes\":%d}}\n",
+                toJson(latency), toJson(generation), cache.getHits(), cache.getMisses(), cache.getCoalesced(), cache.getDiskHits(),
+                cache.getHitRatio(), cache.size(), cache.getBytes(), cache.getMaxBytes());
+            byte[] body = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Durate in millisecondi
+    private static String toJson(LatencyHistogram histogram) {
+        return String.format(Locale.ROOT, "{\"count\":%d,\"meanMs\":%.3f,\"p50Ms\":%.3f,\"p90Ms\":%.3f,\"p99Ms\":%.3f,\"maxMs\":%.3f}",
+                histogram.getCount(), histogram.getMean() / 1e6, histogram.getPercentile(0.5) / 1e6,
+                histogram.getPercentile(0.9) / 1e6, histogram.getPercentile(0.99) / 1e6, histogram.getMax() / 1e6);
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = (message + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+        if (rawQuery == null) return query;
+        for (String pair : rawQuery.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals <= 0) continue;
+            query.put(URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8),
+                      URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private static String require(Map<String, String> query, String name) {
+        String value = query.get(name);
+        if (value == null) throw new IllegalArgumentException("Parametro mancante: " + name);
+        return value;
+    }
+
+    // Un thread virtuale per richiesta se la JVM li offre (Java 21+), come in BatchRunner; altrimenti un pool
+    // in cache. Le richieste passano gran parte del tempo a scrivere sul socket o ad aspettare una generazione
+    private ExecutorService newExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            ExecutorService executor = (ExecutorService) factory.invoke(null);
+            virtualThreads = true;
+            return executor;
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+}
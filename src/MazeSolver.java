@@ -0,0 +1,9 @@
+// Risolutore intercambiabile: cerca il percorso dall'entrata (0, 0) all'uscita (rows-1, cols-1)
+// leggendo direttamente i bit di MazeStorage.
+public interface MazeSolver {
+    // Nome mostrato nell'interfaccia e nei log
+    String getName();
+
+    // Celle del percorso come indici r * cols + c, dall'entrata all'uscita; vuoto se l'uscita non e' raggiungibile
+    int[] solve(MazeStorage storage);
+}
@@ -0,0 +1,78 @@
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+// Elenco dei risolutori disponibili, piu' le strutture compatte che condividono:
+// bitmap di celle visitate (1 bit per cella) e direzione verso il genitore (2 bit per cella)
+public final class MazeSolvers {
+    public static final MazeSolver BREADTH_FIRST = new BfsSolver();
+
+    private static final List<MazeSolver> ALL = Collections.unmodifiableList(Arrays.asList(
+        BREADTH_FIRST,
+        new AStarSolver(),
+        new BidirectionalBfsSolver(),
+        new DeadEndFillingSolver()
+    ));
+
+    private MazeSolvers() {}
+
+    public static List<MazeSolver> all() {
+        return ALL;
+    }
+
+    public static MazeSolver byName(String name) {
+        for (MazeSolver solver : ALL) {
+            if (solver.getName().equalsIgnoreCase(name)) return solver;
+        }
+        throw new IllegalArgumentException("Risolutore sconosciuto: " + name);
+    }
+
+    static long[] newBitmap(int cells) {
+        return new long[(cells + 63) >>> 6];
+    }
+
+    static boolean testBit(long[] bitmap, int cell) {
+        return (bitmap[cell >>> 6] & (1L << cell)) != 0;
+    }
+
+    static void setBit(long[] bitmap, int cell) {
+        bitmap[cell >>> 6] |= 1L << cell;
+    }
+
+    static long[] newParents(int cells) {
+        return new long[(cells + 31) >>> 5];
+    }
+
+    // Direzione in cui si trova il genitore della cella (Maze.UP ... Maze.RIGHT)
+    static int getParent(long[] parents, int cell) {
+        return (int) (parents[cell >>> 5] >>> ((cell & 31) << 1)) & 3;
+    }
+
+    static void setParent(long[] parents, int cell, int dir) {
+        int shift = (cell & 31) << 1;
+        parents[cell >>> 5] = (parents[cell >>> 5] & ~(3L << shift)) | ((long) dir << shift);
+    }
+
+    // Cella adiacente nella direzione indicata, come indice
+    static int step(int cell, int dir, int cols) {
+        switch (dir) {
+            case Maze.UP: return cell - cols;
+            case Maze.DOWN: return cell + cols;
+            case Maze.LEFT: return cell - 1;
+            default: return cell + 1;
+        }
+    }
+
+    // Percorso da 'from' a 'to' risalendo i genitori da 'to'; due passate per allocare un solo array
+    static int[] tracePath(long[] parents, int from, int to, int cols) {
+        int length = 1;
+        for (int cell = to; cell != from; cell = step(cell, getParent(parents, cell), cols)) length++;
+        int[] path = new int[length];
+        int cell = to;
+        for (int i = length - 1; i >= 0; i--) {
+            path[i] = cell;
+            if (i > 0) cell = step(cell, getParent(parents, cell), cols);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,93 @@
+import java.nio.LongBuffer;
+
+// Rappresentazione compatta del labirinto: per ogni cella si memorizzano solo il muro a est
+// e quello a sud (i muri nord/ovest sono quelli sud/est del vicino), piu' il bit "visitata".
+// Ogni informazione e' un piano di bit; un bit a 1 indica un passaggio aperto,
+// cosi' una memoria azzerata corrisponde a un labirinto con tutti i muri.
+// Ogni riga occupa un numero intero di long: righe diverse non condividono mai una parola.
+public abstract class MazeStorage {
+    static final int EAST = 0, SOUTH = 1, VISITED = 2;
+    static final int PLANES = 3;
+
+    protected final int rows, cols;
+    protected final int wordsPerRow;
+    protected final long wordsPerPlane;
+
+    protected MazeStorage(int rows, int cols) {
+        if (rows < 1 || cols < 1 || (long) rows * cols > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Dimensioni non valide: " + rows + "x" + cols);
+        }
+        this.rows = rows;
+        this.cols = cols;
+        this.wordsPerRow = (cols + 63) >>> 6;
+        this.wordsPerPlane = (long) rows * wordsPerRow;
+    }
+
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+
+    public boolean isEastOpen(int r, int c) { return testBit(EAST, r, c); }
+    public boolean isSouthOpen(int r, int c) { return testBit(SOUTH, r, c); }
+    public boolean isVisited(int r, int c) { return testBit(VISITED, r, c); }
+
+    public void openEast(int r, int c) { setBit(EAST, r, c); }
+    public void openSouth(int r, int c) { setBit(SOUTH, r, c); }
+    public void setVisited(int r, int c) { setBit(VISITED, r, c); }
+
+    // Riporta il labirinto allo stato iniziale: tutti i muri, nessuna cella visitata
+    public abstract void clear();
+
+    // Byte occupati dai piani di bit
+    public long sizeInBytes() {
+        return PLANES * wordsPerPlane * Long.BYTES;
+    }
+
+    // Numero di bit a 1 del piano nelle colonne [fromCol, toCol) della riga r, una parola alla volta
+    int countBits(int plane, int r, int fromCol, int toCol) {
+        int count = 0;
+        long base = plane * wordsPerPlane + (long) r * wordsPerRow;
+        for (int c = fromCol; c < toCol; c = (c | 63) + 1) {
+            long word = getWord(base + (c >>> 6)) >>> c;
+            int bits = Math.min(64 - (c & 63), toCol - c);
+            count += Long.bitCount(bits == 64 ? word : word & ((1L << bits) - 1));
+        }
+        return count;
+    }
+
+    // Copia in blocco dst.remaining() parole a partire da 'from' nel buffer (e viceversa), per salvare e
+    // caricare senza passare dalle singole celle. Gli archivi concreti possono farlo con una copia unica
+    void getWords(long from, LongBuffer dst) {
+        while (dst.hasRemaining()) dst.put(getWord(from++));
+    }
+
+    void setWords(long from, LongBuffer src) {
+        while (src.hasRemaining()) setWord(from++, src.get());
+    }
+
+    // Segna visitate tutte le celle, senza toccare i bit di riempimento oltre l'ultima colonna
+    void setAllVisited() {
+        long base = VISITED * wordsPerPlane;
+        long lastMask = (cols & 63) == 0 ? -1L : (1L << cols) - 1;
+        for (long row = 0; row < rows; row++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                setWord(base + row * wordsPerRow + w, w == wordsPerRow - 1 ? lastMask : -1L);
+            }
+        }
+    }
+
+    protected abstract long getWord(long index);
+    protected abstract void setWord(long index, long value);
+
+    private long wordIndex(int plane, int r, int c) {
+        return plane * wordsPerPlane + (long) r * wordsPerRow + (c >>> 6);
+    }
+
+    private boolean testBit(int plane, int r, int c) {
+        return (getWord(wordIndex(plane, r, c)) & (1L << c)) != 0; // Lo shift di un long e' gia' modulo 64
+    }
+
+    private void setBit(int plane, int r, int c) {
+        long index = wordIndex(plane, r, c);
+        setWord(index, getWord(index) | (1L << c));
+    }
+}
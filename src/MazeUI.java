@@ -3,12 +3,21 @@ import javax.swing.border.EmptyBorder;
 import javax.swing.plaf.basic.BasicProgressBarUI;
 import javax.swing.plaf.basic.BasicScrollBarUI;
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.image.BufferedImage;
-import java.util.ArrayList;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class MazeUI extends JFrame {
     // Design generale dell'applicazione
@@ -37,6 +46,16 @@ public class MazeUI extends JFrame {
     private static final Font FONT_BODY = new Font("Inter", Font.PLAIN, 13);
     private static final Font FONT_CAPTION = new Font("Inter", Font.PLAIN, 12);
     private static final Font FONT_MONO = new Font("SF Mono", Font.PLAIN, 12);
+    
+    // Dimensioni: fino a 10k x 10k (100M celle, circa 40 MB di piani)
+    private static final int MIN_SIZE = 5;
+    private static final int MAX_SIZE = 10_000;
+    // Oltre questa soglia non si registra il CarveLog (fino a 8 byte per cella): niente riproduzione,
+    // la vista si aggiorna durante la generazione ogni PROGRESS_INTERVAL ms
+    private static final long REPLAY_MAX_CELLS = 1L << 20;
+    private static final int PROGRESS_INTERVAL = 250;
+    // Velocita' dell'animazione: 2^v celle per frame per v < SPEED_STEPS, all'ultimo scatto istantanea
+    private static final int SPEED_STEPS = 11;
 
     private JButton startButton;
     private JButton restartButton;
@@ -46,24 +65,55 @@ public class MazeUI extends JFrame {
     private JSpinner rowSpinner;
     private JSpinner colSpinner;
     private JButton resizeButton;
+    private JComboBox<MazeAlgorithm> algorithmBox;
+    private JComboBox<MazeSolver> solverBox;
+    private JTextField seedField;
+    private Long currentSeed;   // Seed del labirinto mostrato, null se non e' noto (replay caricato)
+    private MazeAlgorithm currentAlgorithm;   // Algoritmo del labirinto mostrato, null se non e' noto
+    private final DiskMazeCache diskCache;    // null se la cartella della cache non e' utilizzabile
+    private JButton solveButton;
     private Maze maze;
     private MazePanel panel;
     private JProgressBar progressBar;
     private JScrollPane scrollPane;
-    private long startTime;
-    private long endTime;
     
     private JPanel performancePanel;
     private JTextArea performanceLog;
     private JScrollPane performanceScrollPane;
     private JLabel performanceTitle;
-    private java.util.List<String> performanceData;
+    private final MetricsRegistry metrics = new MetricsRegistry();
     private JButton clearLogButton;
+    private JButton exportLogButton;
+    private JLabel totalRunsLabel;
+    private JLabel avgTimeLabel;
+    private JLabel percentilesLabel;
+    private JLabel throughputLabel;
+    
+    private MazeReplayer replayer;
+    private final GenerationController generation = new GenerationController();
+    private JButton stepButton;
+    private JSlider speedSlider;
+    private JLabel speedLabel;
+    private boolean updatingSpeed;
+    private JButton rewindButton;
+    private JButton playPauseButton;
+    private JButton fastForwardButton;
+    private JButton saveReplayButton;
+    private JButton loadReplayButton;
+    private JButton saveMazeButton;
+    private JButton loadMazeButton;
+    private JButton exportButton;
+    private JSlider replaySlider;
+    private boolean updatingSlider;
+    
+    private JButton zoomOutButton;
+    private JButton zoomInButton;
+    private JLabel zoomLabel;
 
     public MazeUI(Maze initialMaze, MazePanel initialPanel) {
         this.maze = initialMaze;
         this.panel = initialPanel;
-        this.performanceData = new ArrayList<>();
+        this.diskCache = DiskMazeCache.openDefault();
 
         setupLookAndFeel();
         setupFrame();
@@ -124,12 +174,24 @@ public class MazeUI extends JFrame {
         JPanel centerPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 16, 0));
         centerPanel.setBackground(WHITE);
 
+        algorithmBox = createChoiceBox(MazeAlgorithms.all().toArray(new MazeAlgorithm[0]), MazeAlgorithm::getName);
+        solverBox = createChoiceBox(MazeSolvers.all().toArray(new MazeSolver[0]), MazeSolver::getName);
+        seedField = createSeedField();
+
         startButton = createSecondaryButton("Genera");
         restartButton = createSecondaryButton("Riavvia");
         restartButton.setEnabled(false);
+        solveButton = createSecondaryButton("Risolvi");
+        solveButton.setEnabled(false);
 
+        centerPanel.add(createLabel("Algoritmo"));
+        centerPanel.add(algorithmBox);
+        centerPanel.add(createLabel("Seed"));
+        centerPanel.add(seedField);
         centerPanel.add(startButton);
         centerPanel.add(restartButton);
+        centerPanel.add(solverBox);
+        centerPanel.add(solveButton);
 
         // Destra: Controllo dimensione
         JPanel rightPanel = createSizeControls();
@@ -183,6 +245,7 @@ public class MazeUI extends JFrame {
         customizeScrollPane(scrollPane);
         
         mazeArea.add(scrollPane, BorderLayout.CENTER);
+        mazeArea.add(createReplayBar(), BorderLayout.SOUTH);
 
         // Pannello delle performance
         JPanel performanceArea = createPerformancePanel();
@@ -193,6 +256,83 @@ public class MazeUI extends JFrame {
         return main;
     }
 
+    private JPanel createReplayBar() {
+        JPanel bar = new JPanel(new BorderLayout(16, 0));
+        bar.setBackground(GRAY_50);
+        bar.setBorder(new EmptyBorder(16, 0, 0, 0));
+
+        // Sinistra: controlli di riproduzione
+        JPanel playback = new JPanel(new FlowLayout(FlowLayout.LEFT, 8, 0));
+        playback.setBackground(GRAY_50);
+
+        rewindButton = createSecondaryButton("Riavvolgi");
+        playPauseButton = createSecondaryButton("Pausa");
+        fastForwardButton = createSecondaryButton("Avanti ×2");
+        stepButton = createSecondaryButton("Passo");
+        stepButton.setToolTipText("Avanza di una cella, anche durante la generazione");
+
+        playback.add(rewindButton);
+        playback.add(playPauseButton);
+        playback.add(stepButton);
+        playback.add(fastForwardButton);
+
+        speedSlider = new JSlider(0, SPEED_STEPS, 0);
+        speedSlider.setBackground(GRAY_50);
+        speedSlider.setPreferredSize(new Dimension(120, 32));
+        speedSlider.setToolTipText("Celle per frame, da una a istantanea");
+        speedLabel = createLabel("");
+        speedLabel.setFont(FONT_MONO);
+        speedLabel.setPreferredSize(new Dimension(96, 32));
+        updateSpeedLabel();
+
+        playback.add(speedSlider);
+        playback.add(speedLabel);
+
+        // Centro: posizione nella riproduzione
+        replaySlider = new JSlider(0, 0, 0);
+        replaySlider.setBackground(GRAY_50);
+
+        // Destra: zoom, salvataggio e caricamento del registro e del labirinto
+        JPanel files = new JPanel(new FlowLayout(FlowLayout.RIGHT, 8, 0));
+        files.setBackground(GRAY_50);
+
+        zoomOutButton = createSecondaryButton("−");
+        zoomInButton = createSecondaryButton("+");
+        zoomLabel = createLabel("");
+        zoomLabel.setFont(FONT_MONO);
+        zoomLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        zoomLabel.setPreferredSize(new Dimension(56, 32));
+        updateZoomControls();
+
+        files.add(zoomOutButton);
+        files.add(zoomLabel);
+        files.add(zoomInButton);
+
+        saveReplayButton = createSecondaryButton("Salva replay");
+        loadReplayButton = createSecondaryButton("Carica replay");
+
+        files.add(saveReplayButton);
+        files.add(loadReplayButton);
+
+        saveMazeButton = createSecondaryButton("Salva labirinto");
+        saveMazeButton.setEnabled(false);
+        loadMazeButton = createSecondaryButton("Carica labirinto");
+
+        exportButton = createSecondaryButton("Esporta immagine");
+        exportButton.setEnabled(false);
+
+        files.add(saveMazeButton);
+        files.add(loadMazeButton);
+        files.add(exportButton);
+
+        bar.add(playback, BorderLayout.WEST);
+        bar.add(replaySlider, BorderLayout.CENTER);
+        bar.add(files, BorderLayout.EAST);
+
+        setReplayControlsEnabled(false);
+        return bar;
+    }
+
     private JPanel createPerformancePanel() {
         performancePanel = new JPanel(new BorderLayout());
         performancePanel.setBackground(WHITE);
@@ -214,8 +354,21 @@ public class MazeUI extends JFrame {
         clearLogButton = createDangerButton("Pulisci");
         clearLogButton.setPreferredSize(new Dimension(75, 32)); // Dimensione più grande per il testo
 
-        header.add(performanceTitle, BorderLayout.WEST);
-        header.add(clearLogButton, BorderLayout.EAST);
+        exportLogButton = createSecondaryButton("Esporta");
+        exportLogButton.setPreferredSize(new Dimension(80, 32));
+        exportLogButton.setToolTipText("Esporta le misure in CSV o JSON");
+        exportLogButton.setEnabled(false);
+
+        // I due pulsanti non stanno accanto al titolo: vanno su una riga sotto
+        JPanel headerButtons = new JPanel(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        headerButtons.setBackground(WHITE);
+        headerButtons.setBorder(new EmptyBorder(12, 0, 0, 0));
+        headerButtons.add(clearLogButton);
+        headerButtons.add(Box.createHorizontalStrut(8));
+        headerButtons.add(exportLogButton);
+
+        header.add(performanceTitle, BorderLayout.NORTH);
+        header.add(headerButtons, BorderLayout.SOUTH);
 
         // Log area
         performanceLog = new JTextArea();
@@ -254,28 +407,33 @@ public class MazeUI extends JFrame {
         statsTitle.setForeground(BLUE_600);
         statsTitle.setAlignmentX(Component.LEFT_ALIGNMENT);
 
-        JLabel totalRunsLabel = new JLabel("Esecuzioni totali: 0");
-        totalRunsLabel.setFont(FONT_CAPTION);
-        totalRunsLabel.setForeground(GRAY_600);
-        totalRunsLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
-
-        JLabel avgTimeLabel = new JLabel("Media: -- ms");
-        avgTimeLabel.setFont(FONT_CAPTION);
-        avgTimeLabel.setForeground(GRAY_600);
-        avgTimeLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        totalRunsLabel = createStatsLabel();
+        avgTimeLabel = createStatsLabel();
+        percentilesLabel = createStatsLabel();
+        throughputLabel = createStatsLabel();
+        updateStats();
 
         stats.add(statsTitle);
         stats.add(Box.createVerticalStrut(8));
         stats.add(totalRunsLabel);
         stats.add(Box.createVerticalStrut(4));
         stats.add(avgTimeLabel);
-
-        stats.putClientProperty("totalRuns", totalRunsLabel);
-        stats.putClientProperty("avgTime", avgTimeLabel);
+        stats.add(Box.createVerticalStrut(4));
+        stats.add(percentilesLabel);
+        stats.add(Box.createVerticalStrut(4));
+        stats.add(throughputLabel);
 
         return stats;
     }
 
+    private JLabel createStatsLabel() {
+        JLabel label = new JLabel();
+        label.setFont(FONT_CAPTION);
+        label.setForeground(GRAY_600);
+        label.setAlignmentX(Component.LEFT_ALIGNMENT);
+        return label;
+    }
+
     private JPanel createStatusPanel() {
         JPanel status = new JPanel(new BorderLayout());
         status.setBackground(WHITE);
@@ -385,9 +543,9 @@ public class MazeUI extends JFrame {
     }
 
     private JSpinner createSpinner(int value) {
-        JSpinner spinner = new JSpinner(new SpinnerNumberModel(value, 5, 50, 1));
+        JSpinner spinner = new JSpinner(new SpinnerNumberModel(value, MIN_SIZE, MAX_SIZE, 1));
         spinner.setFont(FONT_BODY);
-        spinner.setPreferredSize(new Dimension(64, 32));
+        spinner.setPreferredSize(new Dimension(88, 32));
         
         JComponent editor = spinner.getEditor();
         if (editor instanceof JSpinner.DefaultEditor) {
@@ -401,6 +559,41 @@ public class MazeUI extends JFrame {
         return spinner;
     }
 
+    // Vuoto = seed casuale; un seed scritto qui rigenera sempre lo stesso labirinto
+    private JTextField createSeedField() {
+        JTextField field = new JTextField(10);
+        field.setFont(FONT_BODY);
+        field.setForeground(GRAY_700);
+        field.setPreferredSize(new Dimension(120, 32));
+        field.setToolTipText("Vuoto per un seed casuale");
+        field.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(GRAY_300, 1),
+            new EmptyBorder(4, 8, 4, 8)
+        ));
+        return field;
+    }
+
+    private <T> JComboBox<T> createChoiceBox(T[] items, java.util.function.Function<T, String> name) {
+        JComboBox<T> box = new JComboBox<>(items);
+        box.setFont(FONT_BODY);
+        box.setForeground(GRAY_700);
+        box.setBackground(WHITE);
+        box.setPreferredSize(new Dimension(150, 32));
+        box.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                super.getListCellRendererComponent(list, value, index, isSelected, cellHasFocus);
+                if (value != null) {
+                    setText(name.apply((T) value));
+                }
+                return this;
+            }
+        });
+        return box;
+    }
+
     private JProgressBar createProgressBar() {
         progressBar = new JProgressBar();
         progressBar.setStringPainted(false); // Disabilitiamo il testo sovrapposto
@@ -549,8 +742,50 @@ public class MazeUI extends JFrame {
     private void setupEventHandlers() {
         startButton.addActionListener(e -> startMazeGeneration());
         restartButton.addActionListener(e -> restartMazeGeneration());
+        solveButton.addActionListener(e -> solveMaze());
         resizeButton.addActionListener(e -> resizeMaze());
         clearLogButton.addActionListener(e -> clearPerformanceLog());
+        exportLogButton.addActionListener(e -> exportPerformanceLog());
+        
+        rewindButton.addActionListener(e -> {
+            panel.setSolution(null);
+            generation.rewind();
+            updatePlayPauseButton();
+        });
+        playPauseButton.addActionListener(e -> togglePlayback());
+        stepButton.addActionListener(e -> {
+            panel.setSolution(null);
+            generation.step();
+            updatePlayPauseButton();
+        });
+        fastForwardButton.addActionListener(e -> {
+            generation.fastForward();
+            updatingSpeed = true;
+            speedSlider.setValue(Integer.numberOfTrailingZeros(Integer.highestOneBit(generation.getSpeed())));
+            updatingSpeed = false;
+            updateSpeedLabel();
+            updatePlayPauseButton();
+        });
+        speedSlider.addChangeListener(e -> {
+            if (!updatingSpeed) generation.setSpeed(speedFor(speedSlider.getValue()));
+            updateSpeedLabel();
+        });
+        replaySlider.addChangeListener(e -> {
+            if (!updatingSlider && replayer != null) {
+                panel.setSolution(null);
+                generation.pause();
+                replayer.seek(replaySlider.getValue());
+                updatePlayPauseButton();
+            }
+        });
+        saveReplayButton.addActionListener(e -> saveReplay());
+        loadReplayButton.addActionListener(e -> loadReplay());
+        saveMazeButton.addActionListener(e -> saveMaze());
+        loadMazeButton.addActionListener(e -> loadMaze());
+        exportButton.addActionListener(e -> exportImage());
+        zoomOutButton.addActionListener(e -> zoom(-1, null));
+        zoomInButton.addActionListener(e -> zoom(1, null));
+        installZoomWheel(panel);
         
         addComponentListener(new ComponentAdapter() {
             @Override
@@ -561,60 +796,159 @@ public class MazeUI extends JFrame {
     }
 
     private void startMazeGeneration() {
+        long seed;
+        String seedText = seedField.getText().trim();
+        if (seedText.isEmpty()) {
+            seed = ThreadLocalRandom.current().nextLong();
+        } else {
+            try {
+                seed = Long.parseLong(seedText);
+            } catch (NumberFormatException ex) {
+                showError("Seed non valido: " + seedText);
+                return;
+            }
+        }
+        
         // Cambia il bottone a stile primario verde durante la generazione
         startButton.setForeground(WHITE);
         startButton.setBackground(GREEN_500);
         startButton.setBorder(new EmptyBorder(12, 24, 12, 24));
         
+        // Riavvio e ridimensionamento restano disponibili: annullano la generazione in corso
         startButton.setEnabled(false);
-        resizeButton.setEnabled(false);
-        rowSpinner.setEnabled(false);
-        colSpinner.setEnabled(false);
+        algorithmBox.setEnabled(false);
+        seedField.setEnabled(false);
+        restartButton.setEnabled(true);
         statusLabel.setText("Generazione in corso...");
         statusLabel.setForeground(BLUE_600);
         progressBar.setIndeterminate(true);
         timeLabel.setText("  •  --");
         
-        startTime = System.currentTimeMillis();
+        MazeAlgorithm algorithm = (MazeAlgorithm) algorithmBox.getSelectedItem();
+        MazePanel targetPanel = panel;
+        long cells = (long) maze.getRows() * maze.getCols();
+        boolean replay = cells <= REPLAY_MAX_CELLS;
+        // Con la riproduzione si genera in un labirinto a parte e quello mostrato si costruisce sull'EDT
+        // con gli eventi che arrivano dalla coda; senza, si genera direttamente in quello mostrato
+        Maze target = replay ? new Maze(maze.getRows(), maze.getCols()) : maze;
+        CarveEventRing ring = replay ? new CarveEventRing(maze.getCols()) : null;
+        MazeReplayer live = replay ? startLiveReplay(ring) : null;
         
-        new Thread(() -> {
-            try {
-                maze.generate(panel);
-                endTime = System.currentTimeMillis();
-                long duration = endTime - startTime;
-                
-                SwingUtilities.invokeLater(() -> {
-                    restartButton.setEnabled(true);
-                    resizeButton.setEnabled(true);
-                    rowSpinner.setEnabled(true);
-                    colSpinner.setEnabled(true);
-                    statusLabel.setText("Generazione completata");
-                    statusLabel.setForeground(GREEN_500);
-                    progressBar.setIndeterminate(false);
-                    progressBar.setValue(100);
-                    timeLabel.setText("  •  " + duration + " ms");
-                    
-                    addPerformanceEntry(maze.getRows(), maze.getCols(), duration);
-                });
-            } catch (InterruptedException ex) {
+        GenerationController.Task submitted = generation.submit(task -> {
+            // Tempo e allocazioni si misurano sul thread che lavora
+            MetricsRegistry.RunTimer timer = MetricsRegistry.startTimer();
+            
+            // Un labirinto gia' generato, anche da un altro processo, si prende dalla cache su disco
+            Maze cached = loadCachedMaze(target.getRows(), target.getCols(), algorithm, seed);
+            task.checkCancelled();
+            if (cached != null) {
+                RunRecord run = timer.stop(RunRecord.CACHE, algorithm.getName(), cached.getRows(), cached.getCols(), seed);
                 SwingUtilities.invokeLater(() -> {
-                    statusLabel.setText("Generazione interrotta");
-                    statusLabel.setForeground(RED_500);
-                    progressBar.setIndeterminate(false);
-                    progressBar.setValue(0);
-                    resizeButton.setEnabled(true);
-                    rowSpinner.setEnabled(true);
-                    colSpinner.setEnabled(true);
-                    timeLabel.setText("  •  --");
+                    if (task.isCancelled()) return;
+                    showCompleteMaze(cached, algorithm, seed, "Labirinto dalla cache", run.getDurationMillis());
+                    addPerformanceEntry(run);
                 });
+                return;
+            }
+            
+            // La generazione va a piena velocita' e non aspetta mai l'animazione: se la coda si riempie
+            // la riproduzione continua dal registro completo
+            CarveLog log = replay ? new CarveLog(target.getRows(), target.getCols()) : null;
+            target.generate(algorithm, seed, task.listener(replay ? CarveListener.both(log, ring) : null));
+            RunRecord run = timer.stop(RunRecord.GENERATION, algorithm.getName(), target.getRows(), target.getCols(), seed);
+            long duration = run.getDurationMillis();
+            storeCachedMaze(target, algorithm, seed);
+            
+            SwingUtilities.invokeLater(() -> {
+                if (task.isCancelled()) return;   // Riavviato o sostituito nel frattempo
+                solveButton.setEnabled(true);
+                saveMazeButton.setEnabled(true);
+                exportButton.setEnabled(true);
+                statusLabel.setText("Generazione completata  •  seed " + seed);
+                statusLabel.setForeground(GREEN_500);
+                progressBar.setIndeterminate(false);
+                progressBar.setValue(100);
+                timeLabel.setText("  •  " + duration + " ms");
+                
+                currentSeed = seed;
+                currentAlgorithm = algorithm;
+                addPerformanceEntry(run);
+                if (log != null) {
+                    if (live == replayer) completeLiveReplay(log);
+                } else {
+                    // Il labirinto mostrato e' gia' quello generato
+                    setReplayControlsEnabled(false);
+                    targetPanel.mazeChanged();
+                }
+            });
+        }, () -> SwingUtilities.invokeLater(() -> {
+            // Il thread di generazione e' fermo: si mostra quanto ha scavato finora
+            if (targetPanel != panel || !generation.isGenerating()) return;
+            targetPanel.mazeChanged();
+            statusLabel.setText("Generazione in pausa");
+            statusLabel.setForeground(AMBER_500);
+        }));
+        playPauseButton.setEnabled(true);
+        stepButton.setEnabled(true);
+        updatePlayPauseButton();
+        if (!replay) startProgressRefresh(submitted, targetPanel, cells);
+    }
+
+    // Animazione della generazione in corso, nel labirinto mostrato (vuoto): niente ricerca ne' riavvolgimento
+    // finche' non arriva il registro completo
+    private MazeReplayer startLiveReplay(CarveEventRing ring) {
+        stopReplay();
+        panel.setSolution(null);
+        installReplayer(new MazeReplayer(maze, panel, ring));
+        return replayer;
+    }
+
+    private void completeLiveReplay(CarveLog log) {
+        replayer.attachLog(log);
+        updatingSlider = true;
+        replaySlider.setMaximum(log.size());
+        replaySlider.setValue(replayer.getPosition());
+        updatingSlider = false;
+        setReplayControlsEnabled(true);
+        updatePlayPauseButton();
+    }
+
+    // Senza riproduzione la vista mostra la generazione mentre avanza: a ogni intervallo si ridisegna
+    // quanto scavato finora (la vista ridotta ricalcola le tile entro il budget di ogni frame)
+    private void startProgressRefresh(GenerationController.Task task, MazePanel target, long cells) {
+        new Timer(PROGRESS_INTERVAL, new ActionListener() {
+            private long shown;
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (task.isFinished() || task.isCancelled() || target != panel) {
+                    ((Timer) e.getSource()).stop();
+                    return;
+                }
+                long carved = task.getCarved();
+                if (carved == shown) return;   // In pausa
+                shown = carved;
+                progressBar.setIndeterminate(false);
+                progressBar.setValue((int) (carved * 100 / cells));
+                target.mazeChanged();
             }
         }).start();
     }
 
     private void restartMazeGeneration() {
-        maze.reset();
-        panel.repaint();
+        stopReplay();
+        if (generation.cancel()) {
+            // La generazione annullata puo' ancora scavare qualche cella nel vecchio labirinto
+            replaceMaze(new Maze(maze.getRows(), maze.getCols()));
+        } else {
+            maze.reset();
+        }
+        panel.mazeChanged();
+        panel.setSolution(null);
         restartButton.setEnabled(false);
+        solveButton.setEnabled(false);
+        saveMazeButton.setEnabled(false);
+        exportButton.setEnabled(false);
         
         // Riporta il bottone start allo stile secondario
         startButton.setForeground(GRAY_700);
@@ -624,6 +958,8 @@ public class MazeUI extends JFrame {
             new EmptyBorder(11, 23, 11, 23)
         ));
         startButton.setEnabled(true);
+        algorithmBox.setEnabled(true);
+        seedField.setEnabled(true);
         
         statusLabel.setText("Pronto per la generazione");
         statusLabel.setForeground(GRAY_700);
@@ -635,15 +971,21 @@ public class MazeUI extends JFrame {
         int newRows = (Integer) rowSpinner.getValue();
         int newCols = (Integer) colSpinner.getValue();
         
-        maze = new Maze(newRows, newCols);
-        panel = new MazePanel(maze);
-        
-        scrollPane.setViewportView(panel);
-        dimensionLabel.setText("  •  " + newRows + "×" + newCols);
-        
-        updateWindowSize();
+        MazeEvents.Resize event = new MazeEvents.Resize();
+        event.begin();
+        event.oldRows = maze.getRows();
+        event.oldCols = maze.getCols();
+        generation.cancel();
+        stopReplay();
+        replaceMaze(new Maze(newRows, newCols));
+        event.rows = newRows;
+        event.cols = newCols;
+        event.commit();
         
         restartButton.setEnabled(false);
+        solveButton.setEnabled(false);
+        saveMazeButton.setEnabled(false);
+        exportButton.setEnabled(false);
         
         // Riporta il bottone start allo stile secondario
         startButton.setForeground(GRAY_700);
@@ -653,6 +995,8 @@ public class MazeUI extends JFrame {
             new EmptyBorder(11, 23, 11, 23)
         ));
         startButton.setEnabled(true);
+        algorithmBox.setEnabled(true);
+        seedField.setEnabled(true);
         
         statusLabel.setText("Labirinto ridimensionato");
         statusLabel.setForeground(AMBER_500);
@@ -663,9 +1007,364 @@ public class MazeUI extends JFrame {
         revalidate();
     }
 
+    private void replaceMaze(Maze newMaze) {
+        maze = newMaze;
+        panel = new MazePanel(maze);
+        
+        scrollPane.setViewportView(panel);
+        installZoomWheel(panel);
+        updateZoomControls();
+        dimensionLabel.setText("  •  " + maze.getRows() + "×" + maze.getCols());
+        
+        updateWindowSize();
+    }
+
+    private void startReplay(CarveLog log) {
+        stopReplay();
+        panel.setSolution(null);
+        
+        updatingSlider = true;
+        replaySlider.setMaximum(log.size());
+        updatingSlider = false;
+        setReplayControlsEnabled(true);
+        installReplayer(new MazeReplayer(maze, panel, log));
+    }
+
+    // Collega la riproduzione a cursore e pulsanti e la fa partire, se non si e' in pausa
+    private void installReplayer(MazeReplayer newReplayer) {
+        replayer = newReplayer;
+        replayer.setProgressListener(position -> {
+            updatingSlider = true;
+            replaySlider.setValue(position);
+            updatingSlider = false;
+        });
+        replayer.setFinishListener(this::updatePlayPauseButton);
+        
+        generation.startReplay(replayer);
+        updatePlayPauseButton();
+    }
+
+    // Porta la riproduzione alla fine (il labirinto completo) e sovrappone il percorso trovato
+    private void solveMaze() {
+        if (replayer != null) {
+            generation.pause();
+            replayer.seek(replayer.getLog().size());
+            updatePlayPauseButton();
+        }
+        
+        MazeSolver solver = (MazeSolver) solverBox.getSelectedItem();
+        Maze solved = maze;
+        MazePanel target = panel;
+        solveButton.setEnabled(false);
+        statusLabel.setText("Risoluzione in corso...");
+        statusLabel.setForeground(BLUE_600);
+        
+        Long seed = currentSeed;
+        
+        // I risolutori non hanno punti di controllo: annullata, la risoluzione finisce ma il percorso si scarta
+        generation.submitBackground(task -> {
+            MetricsRegistry.RunTimer timer = MetricsRegistry.startTimer();
+            int[] path = solver.solve(solved.getStorage());
+            task.checkCancelled();
+            RunRecord run = timer.stop(RunRecord.SOLVE, solver.getName(), solved.getRows(), solved.getCols(), seed);
+            
+            SwingUtilities.invokeLater(() -> {
+                if (task.isCancelled() || target != panel) return; // Nel frattempo il labirinto e' cambiato
+                solveButton.setEnabled(true);
+                target.setSolution(path);
+                statusLabel.setText(path.length > 0 ? "Percorso di " + path.length + " celle" : "Nessun percorso");
+                statusLabel.setForeground(path.length > 0 ? GREEN_500 : RED_500);
+                timeLabel.setText("  •  " + run.getDurationMillis() + " ms");
+                addPerformanceEntry(run);
+            });
+        });
+    }
+
+    private void stopReplay() {
+        if (replayer != null) {
+            replayer.stop();
+            replayer = null;
+            generation.startReplay(null);
+        }
+        updatingSlider = true;
+        replaySlider.setValue(0);
+        replaySlider.setMaximum(0);
+        updatingSlider = false;
+        setReplayControlsEnabled(false);
+    }
+
+    // Durante la generazione ferma e riprende il thread di generazione, dopo la riproduzione
+    private void togglePlayback() {
+        if (generation.isPlaying()) {
+            generation.pause();
+        } else {
+            panel.setSolution(null);
+            generation.play();
+            if (generation.isGenerating()) {
+                statusLabel.setText("Generazione in corso...");
+                statusLabel.setForeground(BLUE_600);
+            }
+        }
+        updatePlayPauseButton();
+    }
+
+    private static int speedFor(int step) {
+        return step >= SPEED_STEPS ? MazeReplayer.INSTANT : 1 << step;
+    }
+
+    private void updateSpeedLabel() {
+        int speed = speedFor(speedSlider.getValue());
+        speedLabel.setText(speed == MazeReplayer.INSTANT ? "istantanea" : speed == 1 ? "1 cella/frame" : speed + " celle/frame");
+    }
+
+    private void updatePlayPauseButton() {
+        playPauseButton.setText(generation.isPlaying() ? "Pausa" : "Riproduci");
+    }
+
+    private void setReplayControlsEnabled(boolean enabled) {
+        rewindButton.setEnabled(enabled);
+        playPauseButton.setEnabled(enabled);
+        stepButton.setEnabled(enabled);
+        fastForwardButton.setEnabled(enabled);
+        replaySlider.setEnabled(enabled);
+        saveReplayButton.setEnabled(enabled);
+    }
+
+    private void saveReplay() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("labirinto.mazelog"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        
+        try {
+            replayer.getLog().save(chooser.getSelectedFile().toPath());
+            statusLabel.setText("Replay salvato");
+            statusLabel.setForeground(GREEN_500);
+        } catch (IOException ex) {
+            showError("Impossibile salvare il replay: " + ex.getMessage());
+        }
+    }
+
+    private void loadReplay() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        
+        CarveLog log;
+        try {
+            log = CarveLog.load(chooser.getSelectedFile().toPath());
+        } catch (IOException ex) {
+            showError("Impossibile caricare il replay: " + ex.getMessage());
+            return;
+        }
+        
+        stopReplay();
+        if (generation.cancel() || log.getRows() != maze.getRows() || log.getCols() != maze.getCols()) {
+            replaceMaze(new Maze(log.getRows(), log.getCols()));
+        }
+        
+        // Il labirinto caricato si comporta come uno appena generato
+        startButton.setEnabled(false);
+        algorithmBox.setEnabled(false);
+        seedField.setEnabled(false);
+        restartButton.setEnabled(true);
+        currentSeed = null;
+        currentAlgorithm = null;
+        solveButton.setEnabled(true);
+        saveMazeButton.setEnabled(true);
+        exportButton.setEnabled(true);
+        statusLabel.setText("Replay caricato");
+        statusLabel.setForeground(GREEN_500);
+        progressBar.setValue(100);
+        timeLabel.setText("  •  --");
+        
+        startReplay(log);
+        revalidate();
+    }
+
+    // Salva il labirinto completo (la riproduzione si porta alla fine) con algoritmo e seed, se noti
+    private void saveMaze() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("labirinto.maze"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        
+        if (replayer != null) {
+            generation.pause();
+            replayer.seek(replayer.getLog().size());
+            updatePlayPauseButton();
+        }
+        int algorithmId = currentAlgorithm != null ? MazeAlgorithms.all().indexOf(currentAlgorithm) : MazeFile.UNKNOWN_ALGORITHM;
+        try {
+            MazeFile.write(chooser.getSelectedFile().toPath(), maze, algorithmId, currentSeed, false);
+            statusLabel.setText("Labirinto salvato");
+            statusLabel.setForeground(GREEN_500);
+        } catch (IOException ex) {
+            showError("Impossibile salvare il labirinto: " + ex.getMessage());
+        }
+    }
+
+    // Il labirinto caricato e' gia' completo: niente riproduzione, si puo' risolvere o salvare subito
+    private void loadMaze() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        
+        long start = System.currentTimeMillis();
+        MazeFile file;
+        try {
+            file = MazeFile.read(chooser.getSelectedFile().toPath());
+        } catch (IOException ex) {
+            showError("Impossibile caricare il labirinto: " + ex.getMessage());
+            return;
+        }
+        long duration = System.currentTimeMillis() - start;
+        
+        java.util.List<MazeAlgorithm> algorithms = MazeAlgorithms.all();
+        int algorithmId = file.getAlgorithmId();
+        MazeAlgorithm algorithm = algorithmId >= 0 && algorithmId < algorithms.size() ? algorithms.get(algorithmId) : null;
+        showCompleteMaze(file.getMaze(), algorithm, file.getSeed(), "Labirinto caricato", duration);
+    }
+
+    // Mostra un labirinto gia' completo (da file o dalla cache su disco): niente riproduzione
+    private void showCompleteMaze(Maze complete, MazeAlgorithm algorithm, Long seed, String status, long duration) {
+        generation.cancel();
+        stopReplay();
+        replaceMaze(complete);
+        
+        // Algoritmo e seed noti finiscono nei controlli: "Ricomincia" rigenera lo stesso labirinto
+        currentAlgorithm = algorithm;
+        currentSeed = seed;
+        if (currentAlgorithm != null) algorithmBox.setSelectedItem(currentAlgorithm);
+        if (currentSeed != null) seedField.setText(Long.toString(currentSeed));
+        
+        startButton.setEnabled(false);
+        algorithmBox.setEnabled(false);
+        seedField.setEnabled(false);
+        restartButton.setEnabled(true);
+        solveButton.setEnabled(true);
+        saveMazeButton.setEnabled(true);
+        exportButton.setEnabled(true);
+        resizeButton.setEnabled(true);
+        rowSpinner.setEnabled(true);
+        colSpinner.setEnabled(true);
+        statusLabel.setText(currentSeed != null ? status + "  •  seed " + currentSeed : status);
+        statusLabel.setForeground(GREEN_500);
+        progressBar.setIndeterminate(false);
+        progressBar.setValue(100);
+        timeLabel.setText("  •  " + duration + " ms");
+        revalidate();
+    }
+
+    // La cache su disco e' un'ottimizzazione: se non risponde si genera come sempre
+    private Maze loadCachedMaze(int rows, int cols, MazeAlgorithm algorithm, long seed) {
+        if (diskCache == null || !DiskMazeCache.isWorthCaching(rows, cols)) return null;
+        try {
+            return diskCache.get(rows, cols, algorithm, seed);
+        } catch (IOException ex) {
+            System.err.println("Lettura dalla cache su disco non riuscita: " + ex.getMessage());
+            return null;
+        }
+    }
+
+    private void storeCachedMaze(Maze generated, MazeAlgorithm algorithm, long seed) {
+        if (diskCache == null || !DiskMazeCache.isWorthCaching(generated.getRows(), generated.getCols())) return;
+        try {
+            diskCache.put(generated, algorithm, seed);
+        } catch (IOException ex) {
+            System.err.println("Scrittura nella cache su disco non riuscita: " + ex.getMessage());
+        }
+    }
+
+    // Esporta il labirinto completo (con il percorso, se mostrato) come PNG o SVG secondo l'estensione.
+    // Per un labirinto grande puo' richiedere parecchio: si lavora su un altro thread
+    private void exportImage() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("labirinto.png"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        
+        if (replayer != null) {
+            generation.pause();
+            replayer.seek(replayer.getLog().size());
+            updatePlayPauseButton();
+        }
+        Path path = chooser.getSelectedFile().toPath();
+        Maze exported = maze;
+        int[] solution = panel.getSolution();
+        exportButton.setEnabled(false);
+        statusLabel.setText("Esportazione in corso...");
+        statusLabel.setForeground(BLUE_600);
+        
+        generation.submitBackground(task -> {
+            long start = System.currentTimeMillis();
+            IOException error = null;
+            try {
+                if (path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".svg")) {
+                    MazeExporter.writeSvg(path, exported, solution);
+                } else {
+                    MazeExporter.writePng(path, exported, solution);
+                }
+            } catch (IOException ex) {
+                error = ex;
+            }
+            if (task.isCancelled()) {
+                // L'interruzione chiude il file a meta': non si lascia un'immagine troncata
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException ex) {
+                    // Resta il file parziale
+                }
+                return;
+            }
+            long duration = System.currentTimeMillis() - start;
+            IOException failure = error;
+            
+            SwingUtilities.invokeLater(() -> {
+                exportButton.setEnabled(saveMazeButton.isEnabled());   // Il labirinto potrebbe essere cambiato
+                if (failure != null) {
+                    showError("Impossibile esportare l'immagine: " + failure.getMessage());
+                    return;
+                }
+                statusLabel.setText("Immagine esportata");
+                statusLabel.setForeground(GREEN_500);
+                timeLabel.setText("  •  " + duration + " ms");
+            });
+        });
+    }
+
+    // Zoom attorno a un punto del pannello, o al centro della parte visibile se null
+    private void zoom(int steps, Point anchor) {
+        if (anchor == null) {
+            Rectangle visible = scrollPane.getViewport().getViewRect();
+            anchor = new Point(visible.x + visible.width / 2, visible.y + visible.height / 2);
+        }
+        panel.zoom(steps, anchor);
+        updateZoomControls();
+    }
+
+    // Ctrl + rotella cambia lo zoom; la rotella da sola continua a scorrere la vista
+    private void installZoomWheel(MazePanel target) {
+        target.addMouseWheelListener(e -> {
+            if (e.isControlDown()) {
+                zoom(e.getWheelRotation() < 0 ? 1 : -1, e.getPoint());
+            } else {
+                scrollPane.dispatchEvent(SwingUtilities.convertMouseEvent(target, e, scrollPane));
+            }
+        });
+    }
+
+    private void updateZoomControls() {
+        double percent = panel.getScale() * 100 / 25;
+        zoomLabel.setText(percent >= 10 ? String.format("%.0f%%", percent) : String.format("%.1f%%", percent));
+        zoomOutButton.setEnabled(panel.canZoomOut());
+        zoomInButton.setEnabled(panel.canZoomIn());
+    }
+
+    private void showError(String message) {
+        JOptionPane.showMessageDialog(this, message, "Errore", JOptionPane.ERROR_MESSAGE);
+    }
+
     private void updateWindowSize() {
-        int mazeWidth = maze.getCols() * 25;
-        int mazeHeight = maze.getRows() * 25;
+        // Dimensioni del labirinto alla scala con cui il pannello lo mostra (senza il margine di 60 px)
+        Dimension preferred = panel.getPreferredSize();
+        int mazeWidth = preferred.width - 60;
+        int mazeHeight = preferred.height - 60;
         
         int totalWidth = Math.max(1300, mazeWidth + 600);
         int totalHeight = Math.max(800, mazeHeight + 300);
@@ -677,80 +1376,81 @@ public class MazeUI extends JFrame {
         setLocationRelativeTo(null);
     }
 
-    private void addPerformanceEntry(int rows, int cols, long duration) {
+    // Il seed (se noto) permette di rigenerare lo stesso labirinto
+    private void addPerformanceEntry(RunRecord run) {
         SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss");
-        String timestamp = timeFormat.format(new Date());
+        String timestamp = timeFormat.format(new Date(run.getTimestamp()));
+        String name = run.getOperation().equals(RunRecord.CACHE) ? run.getName() + " (cache)" : run.getName();
         
-        String entry = String.format("%s  %dx%d  %dms", timestamp, rows, cols, duration);
-        performanceData.add(entry);
+        String entry = run.getSeed() != null
+            ? String.format("%s  %dx%d  %s  seed %d  %dms", timestamp, run.getRows(), run.getCols(), name, run.getSeed(), run.getDurationMillis())
+            : String.format("%s  %dx%d  %s  %dms", timestamp, run.getRows(), run.getCols(), name, run.getDurationMillis());
         
-        if (performanceData.size() == 1) {
+        if (metrics.getCount() == 0) {
             performanceLog.setText("");
         }
+        metrics.record(run);
         
         performanceLog.append(entry + "\n");
         performanceLog.setCaretPosition(performanceLog.getDocument().getLength());
         
         updateStats();
+        exportLogButton.setEnabled(true);
     }
 
+    // Le statistiche vengono dal registro gia' aggregate: nessuna scansione delle voci
     private void updateStats() {
-        if (performanceData.isEmpty()) return;
-        
-        Component[] components = performancePanel.getComponents();
-        JPanel statsPanel = null;
-        for (Component comp : components) {
-            if (comp instanceof JPanel && comp.getBackground().equals(BLUE_50)) {
-                statsPanel = (JPanel) comp;
-                break;
-            }
+        if (metrics.getCount() == 0) {
+            totalRunsLabel.setText("Esecuzioni totali: 0");
+            avgTimeLabel.setText("Media: -- ms");
+            percentilesLabel.setText("p50 / p95 / p99 / max: --");
+            throughputLabel.setText("Generazione: -- celle/s  •  Allocati: --");
+            return;
         }
         
-        if (statsPanel != null) {
-            JLabel totalRunsLabel = (JLabel) statsPanel.getClientProperty("totalRuns");
-            JLabel avgTimeLabel = (JLabel) statsPanel.getClientProperty("avgTime");
-            
-            if (totalRunsLabel != null && avgTimeLabel != null) {
-                int totalRuns = performanceData.size();
-                
-                long totalTime = 0;
-                for (String entry : performanceData) {
-                    String[] parts = entry.split("\\s+");
-                    if (parts.length >= 3) {
-                        String timeStr = parts[parts.length - 1].replace("ms", "");
-                        try {
-                            totalTime += Long.parseLong(timeStr);
-                        } catch (NumberFormatException e) {
-                            // Ignore parsing errors
-                        }
-                    }
-                }
-                
-                long avgTime = totalTime / totalRuns;
-                
-                totalRunsLabel.setText("Esecuzioni totali: " + totalRuns);
-                avgTimeLabel.setText("Media: " + avgTime + " ms");
-            }
-        }
+        long allocated = metrics.getMeanAllocatedBytes();
+        totalRunsLabel.setText("Esecuzioni totali: " + metrics.getCount());
+        avgTimeLabel.setText(String.format("Media: %.1f ms", metrics.getMeanMillis()));
+        percentilesLabel.setText(String.format("p50 / p95 / p99 / max: %.0f / %.0f / %.0f / %.0f ms",
+            metrics.getPercentileMillis(0.5), metrics.getPercentileMillis(0.95),
+            metrics.getPercentileMillis(0.99), metrics.getMaxMillis()));
+        double cellsPerSecond = metrics.getCellsPerSecond();
+        throughputLabel.setText(String.format("Generazione: %s celle/s  •  Allocati: %s",
+            cellsPerSecond > 0 ? formatQuantity(cellsPerSecond) : "--", allocated >= 0 ? formatQuantity(allocated) + "B" : "--"));
+    }
+
+    // 1234567 -> "1.2M"
+    private static String formatQuantity(double value) {
+        if (value >= 1e9) return String.format("%.1fG", value / 1e9);
+        if (value >= 1e6) return String.format("%.1fM", value / 1e6);
+        if (value >= 1e3) return String.format("%.1fk", value / 1e3);
+        return String.format("%.0f", value);
     }
 
     private void clearPerformanceLog() {
-        performanceData.clear();
+        metrics.clear();
         performanceLog.setText("Log delle performance pulito.\n\nI nuovi tempi di esecuzione\nappariranno qui dopo le\nprossime generazioni.");
+        updateStats();
+        exportLogButton.setEnabled(false);
+    }
+
+    // CSV, o JSON se il file finisce in .json
+    private void exportPerformanceLog() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setSelectedFile(new File("performance.csv"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
         
-        Component[] components = performancePanel.getComponents();
-        for (Component comp : components) {
-            if (comp instanceof JPanel && comp.getBackground().equals(BLUE_50)) {
-                JPanel statsPanel = (JPanel) comp;
-                JLabel totalRunsLabel = (JLabel) statsPanel.getClientProperty("totalRuns");
-                JLabel avgTimeLabel = (JLabel) statsPanel.getClientProperty("avgTime");
-                
-                if (totalRunsLabel != null && avgTimeLabel != null) {
-                    totalRunsLabel.setText("Esecuzioni totali: 0");
-                    avgTimeLabel.setText("Media: -- ms");
-                }
-                break;
+        Path path = chooser.getSelectedFile().toPath();
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            if (path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".json")) {
+                metrics.writeJson(out);
+            } else {
+                metrics.writeCsv(out);
             }
+            statusLabel.setText("Metriche esportate");
+            statusLabel.setForeground(GREEN_500);
+        } catch (IOException ex) {
+            showError("Impossibile esportare le metriche: " + ex.getMessage());
         }
     }
 
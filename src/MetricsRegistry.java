@@ -0,0 +1,159 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+// Registro delle esecuzioni: ogni misura aggiorna totali e istogramma senza lock, quindi le statistiche
+// si leggono in tempo costante e coprono tutte le esecuzioni. Come RunRecord restano solo le ultime
+// (un buffer circolare), cosi' la memoria non cresce in una sessione lunga. Si esporta in CSV o JSON.
+public class MetricsRegistry {
+    public static final int DEFAULT_HISTORY = 10_000;
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final RunRecord[] runs;    // Le ultime esecuzioni; la piu' vecchia si sovrascrive
+    private long recorded;             // Esecuzioni mai registrate, sotto il lock di runs
+    private final LatencyHistogram durations = new LatencyHistogram();
+    private final LongAdder cells = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder allocated = new LongAdder();
+    private final LongAdder measuredAllocations = new LongAdder();
+
+    public MetricsRegistry() {
+        this(DEFAULT_HISTORY);
+    }
+
+    public MetricsRegistry(int history) {
+        if (history < 1) throw new IllegalArgumentException("Storico non valido: " + history);
+        this.runs = new RunRecord[history];
+    }
+
+    // Inizia una misura sul thread corrente: durata e byte allocati si leggono dallo stesso thread con stop
+    public static RunTimer startTimer() {
+        return new RunTimer(System.nanoTime(), allocatedBytes());
+    }
+
+    public void record(RunRecord run) {
+        synchronized (runs) {
+            runs[(int) (recorded++ % runs.length)] = run;
+        }
+        durations.record(run.getDurationNanos());
+        if (run.getOperation().equals(RunRecord.GENERATION)) {
+            cells.add(run.getCells());
+            nanos.add(run.getDurationNanos());
+        }
+        if (run.getAllocatedBytes() >= 0) {
+            allocated.add(run.getAllocatedBytes());
+            measuredAllocations.increment();
+        }
+    }
+
+    // Le esecuzioni conservate, dalla piu' vecchia
+    public List<RunRecord> getRuns() {
+        synchronized (runs) {
+            int kept = (int) Math.min(recorded, runs.length);
+            List<RunRecord> result = new ArrayList<>(kept);
+            for (long i = recorded - kept; i < recorded; i++) result.add(runs[(int) (i % runs.length)]);
+            return result;
+        }
+    }
+
+    public long getCount() { return durations.getCount(); }
+    public double getMeanMillis() { return durations.getMean() / 1e6; }
+    public double getPercentileMillis(double q) { return durations.getPercentile(q) / 1e6; }
+    public double getMaxMillis() { return durations.getMax() / 1e6; }
+
+    // Celle generate diviso il tempo delle generazioni: cache e risoluzioni non contano
+    public double getCellsPerSecond() {
+        long total = nanos.sum();
+        return total == 0 ? 0 : cells.sum() * 1e9 / total;
+    }
+
+    // Media dei byte allocati per esecuzione, -1 se nessuna esecuzione li ha misurati
+    public long getMeanAllocatedBytes() {
+        long measured = measuredAllocations.sum();
+        return measured == 0 ? -1 : allocated.sum() / measured;
+    }
+
+    public void clear() {
+        synchronized (runs) {
+            Arrays.fill(runs, null);
+            recorded = 0;
+        }
+        durations.reset();
+        cells.reset();
+        nanos.reset();
+        allocated.reset();
+        measuredAllocations.reset();
+    }
+
+    public void writeCsv(Writer out) throws IOException {
+        out.write("timestamp,operation,name,rows,cols,seed,duration_ns,allocated_bytes,cells_per_second\n");
+        for (RunRecord run : getRuns()) {
+            out.write(String.format(Locale.ROOT, "%d,%s,%s,%d,%d,%s,%d,%d,%.0f%n", run.getTimestamp(), csv(run.getOperation()),
+                    csv(run.getName()), run.getRows(), run.getCols(), run.getSeed() != null ? run.getSeed().toString() : "",
+                    run.getDurationNanos(), run.getAllocatedBytes(), run.getCellsPerSecond()));
+        }
+    }
+
+    public void writeJson(Writer out) throws IOException {
+        List<RunRecord> kept = getRuns();
+        out.write(String.format(Locale.ROOT,
+                "{\"summary\":{\"runs\":%d,\"kept\":%d,\"meanMs\":%.3f,\"p50Ms\":%.3f,\"p95Ms\":%.3f,\"p99Ms\":%.3f,\"maxMs\":%.3f,"
+                + "\"generationCellsPerSecond\":%.0f,\"meanAllocatedBytes\":%d},\n\"runs\":[",
+                getCount(), kept.size(), getMeanMillis(), getPercentileMillis(0.5), getPercentileMillis(0.95), getPercentileMillis(0.99),
+                getMaxMillis(), getCellsPerSecond(), getMeanAllocatedBytes()));
+        boolean first = true;
+        for (RunRecord run : kept) {
+            out.write(first ? "\n" : ",\n");
+            first = false;
+            out.write(String.format(Locale.ROOT,
+                    "{\"timestamp\":%d,\"operation\":%s,\"name\":%s,\"rows\":%d,\"cols\":%d,\"seed\":%s,"
+                    + "\"durationNs\":%d,\"allocatedBytes\":%d,\"cellsPerSecond\":%.0f}",
+                    run.getTimestamp(), json(run.getOperation()), json(run.getName()), run.getRows(), run.getCols(),
+                    run.getSeed() != null ? run.getSeed().toString() : "null", run.getDurationNanos(),
+                    run.getAllocatedBytes(), run.getCellsPerSecond()));
+        }
+        out.write("]}\n");
+    }
+
+    // Byte allocati finora dal thread corrente, se la JVM espone la misura (HotSpot lo fa)
+    private static long allocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static String csv(String value) {
+        return value.indexOf(',') < 0 && value.indexOf('"') < 0 ? value : '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String json(String value) {
+        return '"' + value.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+
+    public static final class RunTimer {
+        private final long startNanos;
+        private final long startAllocated;
+
+        private RunTimer(long startNanos, long startAllocated) {
+            this.startNanos = startNanos;
+            this.startAllocated = startAllocated;
+        }
+
+        public RunRecord stop(String operation, String name, int rows, int cols, Long seed) {
+            long duration = System.nanoTime() - startNanos;
+            long allocatedNow = startAllocated >= 0 ? allocatedBytes() : -1;
+            long allocation = allocatedNow >= 0 ? allocatedNow - startAllocated : -1;
+            return new RunRecord(System.currentTimeMillis(), operation, name, rows, cols, seed, duration, allocation);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Generazione parallela a tessere: ogni tessera esegue la propria DFS su un worker del ForkJoinPool,
+// poi le tessere vengono unite aprendo un solo passaggio per ogni arco di un albero ricoprente
+// delle tessere, cosi' il risultato resta un labirinto perfetto.
+// Il risultato dipende solo dal seed: i generatori delle tessere si ottengono con split() in ordine di tessera.
+// Con un listener ogni tessera registra i propri eventi e il thread chiamante li inoltra una tessera
+// alla volta, in ordine: il listener vede un solo thread e una sequenza di scavo valida, e puo' annullare.
+public class ParallelMazeGenerator implements MazeAlgorithm {
+    // La larghezza e' multipla di 64 cosi' due tessere non scrivono mai nella stessa parola di MazeStorage
+    static final int TILE_WIDTH = 256;
+    static final int TILE_HEIGHT = 256;
+    // Tessere per worker che possono precedere l'inoltro: limita i registri in memoria
+    private static final int TILES_AHEAD = 2;
+
+    private final ForkJoinPool pool;
+
+    public ParallelMazeGenerator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ParallelMazeGenerator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public String getName() {
+        return "DFS parallela";
+    }
+
+    @Override
+    public void generate(MazeStorage storage, SplittableRandom random, CarveListener listener) throws InterruptedException {
+        generate(storage, random.nextLong(), listener);
+    }
+
+    public void generate(Maze maze, long seed) {
+        generate(maze.getStorage(), seed);
+    }
+
+    public void generate(MazeStorage storage, long seed) {
+        try {
+            generate(storage, seed, null);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e); // Non accade senza listener
+        }
+    }
+
+    private void generate(MazeStorage storage, long seed, CarveListener listener) throws InterruptedException {
+        int tileRows = (storage.getRows() + TILE_HEIGHT - 1) / TILE_HEIGHT;
+        int tileCols = (storage.getCols() + TILE_WIDTH - 1) / TILE_WIDTH;
+        SplittableRandom random = new SplittableRandom(seed);
+        SplittableRandom[] tileRandoms = new SplittableRandom[tileRows * tileCols];
+        for (int i = 0; i < tileRandoms.length; i++) tileRandoms[i] = random.split();
+
+        if (listener == null) {
+            pool.invoke(new TileTask(storage, tileRandoms, tileCols, 0, tileRandoms.length, false));
+        } else {
+            carveReporting(storage, tileRandoms, tileCols, listener);
+        }
+        stitch(storage, random, tileRows, tileCols, listener);
+    }
+
+    // Al piu' TILES_AHEAD tessere per worker sono avanti rispetto a quella che si sta inoltrando.
+    // Se il listener annulla, le tessere non ancora iniziate finiscono subito e quelle in corso si aspettano,
+    // cosi' nessuno scrive piu' nello storage quando l'InterruptedException esce da qui
+    private void carveReporting(MazeStorage storage, SplittableRandom[] tileRandoms, int tileCols,
+                                CarveListener listener) throws InterruptedException {
+        TileTask[] tasks = new TileTask[tileRandoms.length];
+        int ahead = TILES_AHEAD * pool.getParallelism();
+        int submitted = 0;
+        try {
+            for (int i = 0; i < tasks.length; i++) {
+                while (submitted < tasks.length && submitted <= i + ahead) {
+                    tasks[submitted] = new TileTask(storage, tileRandoms, tileCols, submitted, submitted + 1, true);
+                    pool.execute(tasks[submitted++]);
+                }
+                TileTask task = tasks[i];
+                task.join();
+                task.log.replay(listener, task.top, task.left);
+                tasks[i] = null;
+            }
+        } finally {
+            for (int i = 0; i < submitted; i++) {
+                if (tasks[i] != null) tasks[i].skip = true;
+            }
+            for (int i = 0; i < submitted; i++) {
+                if (tasks[i] != null) tasks[i].quietlyJoin();
+            }
+        }
+    }
+
+    // Albero ricoprente casuale sulla griglia delle tessere (una DFS su un labirinto di tessere),
+    // poi un passaggio in posizione casuale lungo il bordo condiviso da ogni coppia di tessere collegate
+    private void stitch(MazeStorage storage, SplittableRandom random, int tileRows, int tileCols,
+                        CarveListener listener) throws InterruptedException {
+        HeapMazeStorage tiles = new HeapMazeStorage(tileRows, tileCols);
+        DepthFirstAlgorithm.carve(tiles, 0, 0, tileRows, tileCols, random, null);
+
+        for (int tr = 0; tr < tileRows; tr++) {
+            for (int tc = 0; tc < tileCols; tc++) {
+                int top = tr * TILE_HEIGHT, left = tc * TILE_WIDTH;
+                if (tiles.isEastOpen(tr, tc)) {
+                    int bottom = Math.min(top + TILE_HEIGHT, storage.getRows());
+                    int r = top + random.nextInt(bottom - top), c = left + TILE_WIDTH;
+                    storage.openEast(r, c - 1);
+                    if (listener != null) listener.cellCarved(r, c, Maze.LEFT);
+                }
+                if (tiles.isSouthOpen(tr, tc)) {
+                    int right = Math.min(left + TILE_WIDTH, storage.getCols());
+                    int r = top + TILE_HEIGHT, c = left + random.nextInt(right - left);
+                    storage.openSouth(r - 1, c);
+                    if (listener != null) listener.cellCarved(r, c, Maze.UP);
+                }
+            }
+        }
+    }
+
+    private static final class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final MazeStorage storage;
+        private final SplittableRandom[] tileRandoms;
+        private final int tileCols, from, to;
+        private final boolean recording;
+        private volatile boolean skip;   // Generazione annullata: la tessera non si scava
+        private int top, left;
+        private CarveLog log;            // Eventi della tessera, in coordinate della tessera
+
+        TileTask(MazeStorage storage, SplittableRandom[] tileRandoms, int tileCols, int from, int to, boolean recording) {
+            this.storage = storage;
+            this.tileRandoms = tileRandoms;
+            this.tileCols = tileCols;
+            this.from = from;
+            this.to = to;
+            this.recording = recording;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TileTask(storage, tileRandoms, tileCols, from, mid, recording),
+                          new TileTask(storage, tileRandoms, tileCols, mid, to, recording));
+                return;
+            }
+            if (skip) return;
+
+            top = (from / tileCols) * TILE_HEIGHT;
+            left = (from % tileCols) * TILE_WIDTH;
+            int bottom = Math.min(top + TILE_HEIGHT, storage.getRows());
+            int right = Math.min(left + TILE_WIDTH, storage.getCols());
+            CarveListener listener = null;
+            if (recording) {
+                log = new CarveLog(bottom - top, right - left);
+                listener = new CarveListener() {
+                    @Override
+                    public void cellCarved(int row, int col, int direction) {
+                        log.cellCarved(row - top, col - left, direction);
+                    }
+
+                    @Override
+                    public void backtracked(int row, int col) {
+                        log.backtracked(row - top, col - left);
+                    }
+                };
+            }
+            try {
+                DepthFirstAlgorithm.carve(storage, top, left, bottom, right, tileRandoms[from], listener);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e); // Il registro non annulla
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// Codificatore PNG a flusso (RGB, 8 bit per canale): le righe arrivano a blocchi, passano dal filtro
+// "Up" e dal Deflater e finiscono subito nel canale come chunk IDAT. In memoria restano solo la riga
+// precedente e un buffer di uscita, qualunque sia l'altezza dell'immagine.
+public class PngEncoder {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final int IDAT_SIZE = 1 << 16;
+    private static final byte FILTER_UP = 2;
+
+    private final WritableByteChannel channel;
+    private final int width;
+    private final int height;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final CRC32 crc = new CRC32();
+
+    private final byte[] row;        // Riga filtrata: byte del filtro + 3 byte per pixel
+    private final byte[] previous;   // Riga precedente non filtrata (zeri prima della prima riga)
+    private final byte[] output = new byte[IDAT_SIZE];   // Dati compressi del prossimo chunk IDAT
+    private int outputLength;
+    private int rowsWritten;
+
+    public PngEncoder(WritableByteChannel channel, int width, int height) throws IOException {
+        if (width < 1 || height < 1) throw new IllegalArgumentException("Dimensioni non valide: " + width + "x" + height);
+        this.channel = channel;
+        this.width = width;
+        this.height = height;
+        this.row = new byte[1 + 3 * width];
+        this.previous = new byte[1 + 3 * width];
+
+        writeFully(ByteBuffer.wrap(SIGNATURE));
+        ByteBuffer header = ByteBuffer.allocate(13);
+        header.putInt(width).putInt(height)
+              .put((byte) 8)    // Bit per canale
+              .put((byte) 2)    // Truecolor RGB
+              .put((byte) 0).put((byte) 0).put((byte) 0);   // Deflate, filtri standard, niente interlacciamento
+        writeChunk("IHDR", header.array(), 13);
+    }
+
+    // Aggiunge 'rows' righe di pixel 0xRRGGBB, lette da 'pixels' a partire da 'offset' con passo 'stride'
+    public void writeRows(int[] pixels, int offset, int stride, int rows) throws IOException {
+        if (rowsWritten + rows > height) throw new IllegalStateException("Troppe righe per l'immagine");
+        for (int y = 0; y < rows; y++) {
+            int base = offset + y * stride;
+            for (int x = 0, i = 1; x < width; x++, i += 3) {
+                int rgb = pixels[base + x];
+                byte r = (byte) (rgb >> 16), g = (byte) (rgb >> 8), b = (byte) rgb;
+                row[i] = (byte) (r - previous[i]);
+                row[i + 1] = (byte) (g - previous[i + 1]);
+                row[i + 2] = (byte) (b - previous[i + 2]);
+                previous[i] = r;
+                previous[i + 1] = g;
+                previous[i + 2] = b;
+            }
+            row[0] = FILTER_UP;
+            deflate(row);
+        }
+        rowsWritten += rows;
+    }
+
+    // Chiude lo stream compresso e scrive IEND; il canale resta aperto
+    public void finish() throws IOException {
+        if (rowsWritten != height) throw new IllegalStateException("Mancano " + (height - rowsWritten) + " righe");
+        try {
+            deflater.finish();
+            while (!deflater.finished()) {
+                drain();
+            }
+            if (outputLength > 0) writeChunk("IDAT", output, outputLength);
+            writeChunk("IEND", output, 0);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void deflate(byte[] data) throws IOException {
+        deflater.setInput(data);
+        while (!deflater.needsInput()) {
+            drain();
+        }
+    }
+
+    // I chunk IDAT si scrivono solo pieni, per non spezzare l'immagine in migliaia di chunk minuscoli
+    private void drain() throws IOException {
+        outputLength += deflater.deflate(output, outputLength, IDAT_SIZE - outputLength);
+        if (outputLength == IDAT_SIZE) {
+            writeChunk("IDAT", output, outputLength);
+            outputLength = 0;
+        }
+    }
+
+    // Lunghezza, tipo, dati e CRC del tipo e dei dati
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        crc.reset();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+
+        ByteBuffer header = ByteBuffer.allocate(8);
+        header.putInt(length).put(typeBytes).flip();
+        writeFully(header);
+        writeFully(ByteBuffer.wrap(data, 0, length));
+        ByteBuffer trailer = ByteBuffer.allocate(4);
+        trailer.putInt((int) crc.getValue()).flip();
+        writeFully(trailer);
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+import java.util.SplittableRandom;
+
+// Prim casuale: si estrae una cella a caso dalla frontiera e la si collega a un vicino gia' nel labirinto.
+// La frontiera e' un array di int con rimozione per scambio, la sua appartenenza una bitmap.
+public class PrimAlgorithm implements MazeAlgorithm {
+    @Override
+    public String getName() {
+        return "Prim";
+    }
+
+    @Override
+    public void generate(MazeStorage storage, SplittableRandom random, CarveListener listener) throws InterruptedException {
+        int rows = storage.getRows(), cols = storage.getCols();
+        int cells = rows * cols;
+        int[] frontier = new int[cells];
+        long[] inFrontier = new long[(cells + 63) >>> 6];
+        int size = 0;
+
+        int start = random.nextInt(cells);
+        int r = start / cols, c = start - r * cols;
+        Maze.visit(storage, r, c, Maze.NONE, listener);
+        size = addFrontier(storage, r, c, frontier, inFrontier, size);
+
+        while (size > 0) {
+            int k = random.nextInt(size);
+            int cell = frontier[k];
+            frontier[k] = frontier[--size];
+
+            r = cell / cols;
+            c = cell - r * cols;
+            int dir = Maze.randomNeighbour(storage, r, c, 0, 0, rows, cols, true, random);
+            Maze.removeWall(storage, r, c, dir);
+            Maze.visit(storage, r, c, dir, listener);
+            size = addFrontier(storage, r, c, frontier, inFrontier, size);
+        }
+    }
+
+    private static int addFrontier(MazeStorage storage, int r, int c, int[] frontier, long[] inFrontier, int size) {
+        int rows = storage.getRows(), cols = storage.getCols();
+        for (int dir = 0; dir < 4; dir++) {
+            int nr = r + Maze.DR[dir], nc = c + Maze.DC[dir];
+            if (nr < 0 || nc < 0 || nr >= rows || nc >= cols || storage.isVisited(nr, nc)) continue;
+            int cell = nr * cols + nc;
+            long bit = 1L << cell;
+            if ((inFrontier[cell >>> 6] & bit) == 0) {
+                inFrontier[cell >>> 6] |= bit;
+                frontier[size++] = cell;
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,74 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+// Flusso di righe su un canale (file, pipe, socket): un'intestazione con il numero di colonne,
+// poi per ogni riga le parole dei muri est e sud. Chi legge puo' disegnare o salvare le righe
+// mentre il generatore sta ancora producendo le successive.
+public final class RowChannels {
+    private static final int MAGIC = 0x4D415A52; // "MAZR"
+
+    private RowChannels() {}
+
+    public static RowSink writer(WritableByteChannel channel, int cols) throws IOException {
+        int wordsPerRow = (cols + 63) >>> 6;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(2 * wordsPerRow * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.putInt(MAGIC).putInt(cols).flip();
+        writeFully(channel, buffer);
+
+        return (row, east, south) -> {
+            buffer.clear();
+            for (int i = 0; i < wordsPerRow; i++) buffer.putLong(east[i]);
+            for (int i = 0; i < wordsPerRow; i++) buffer.putLong(south[i]);
+            buffer.flip();
+            writeFully(channel, buffer);
+        };
+    }
+
+    // Legge tutte le righe disponibili passandole al sink; restituisce il numero di righe lette
+    public static long read(ReadableByteChannel channel, RowSink sink) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        if (!readFully(channel, header)) {
+            throw new EOFException("Flusso di righe vuoto");
+        }
+        if (header.getInt() != MAGIC) {
+            throw new IOException("Flusso di righe non riconosciuto");
+        }
+        int cols = header.getInt();
+        int wordsPerRow = (cols + 63) >>> 6;
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(2 * wordsPerRow * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        long[] east = new long[wordsPerRow];
+        long[] south = new long[wordsPerRow];
+        long row = 0;
+        while (readFully(channel, buffer)) {
+            for (int i = 0; i < wordsPerRow; i++) east[i] = buffer.getLong();
+            for (int i = 0; i < wordsPerRow; i++) south[i] = buffer.getLong();
+            sink.acceptRow(row++, east, south);
+        }
+        return row;
+    }
+
+    private static void writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    // false a fine flusso su un confine di riga; una riga troncata e' un errore
+    private static boolean readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (buffer.position() == 0) return false;
+                throw new EOFException("Riga troncata");
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+}
@@ -0,0 +1,6 @@
+// Riceve le righe di un labirinto generato riga per riga.
+// I bit seguono lo stesso formato di una riga di MazeStorage (bit c a 1 = passaggio aperto);
+// gli array vengono riutilizzati dal generatore, quindi vanno copiati se servono dopo la chiamata.
+public interface RowSink {
+    void acceptRow(long row, long[] eastOpen, long[] southOpen) throws java.io.IOException;
+}
@@ -0,0 +1,41 @@
+// Una misura registrata da MetricsRegistry: cosa si e' eseguito, su quale labirinto, quanto e' durato
+// e quanta memoria ha allocato il thread che l'ha eseguito (-1 se la JVM non lo sa misurare)
+public class RunRecord {
+    public static final String GENERATION = "generazione", CACHE = "cache", SOLVE = "risoluzione";
+
+    private final long timestamp;       // Millisecondi dall'epoch, alla fine dell'esecuzione
+    private final String operation;     // GENERATION, CACHE o SOLVE
+    private final String name;          // Algoritmo o risolutore
+    private final int rows;
+    private final int cols;
+    private final Long seed;            // null se non e' noto
+    private final long durationNanos;
+    private final long allocatedBytes;
+
+    public RunRecord(long timestamp, String operation, String name, int rows, int cols, Long seed,
+                     long durationNanos, long allocatedBytes) {
+        this.timestamp = timestamp;
+        this.operation = operation;
+        this.name = name;
+        this.rows = rows;
+        this.cols = cols;
+        this.seed = seed;
+        this.durationNanos = durationNanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    public long getTimestamp() { return timestamp; }
+    public String getOperation() { return operation; }
+    public String getName() { return name; }
+    public int getRows() { return rows; }
+    public int getCols() { return cols; }
+    public Long getSeed() { return seed; }
+    public long getDurationNanos() { return durationNanos; }
+    public long getDurationMillis() { return durationNanos / 1_000_000; }
+    public long getAllocatedBytes() { return allocatedBytes; }
+    public long getCells() { return (long) rows * cols; }
+
+    public double getCellsPerSecond() {
+        return durationNanos == 0 ? 0 : getCells() * 1e9 / durationNanos;
+    }
+}
@@ -0,0 +1,145 @@
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntBinaryOperator;
+
+// Piramide di immagini ridotte del labirinto per lo zoom indietro. Al livello 0 ogni cella e' un
+// quadrato di 2x2 pixel (spigolo, muro sopra, muro a sinistra, pavimento); al livello L > 0 un pixel
+// copre 2^(L-1) celle per lato e ha il colore medio dei 2x2 pixel di quelle celle.
+// Le tile si calcolano su richiesta contando i bit dei piani una parola alla volta, e restano in una cache LRU.
+public class TilePyramid {
+    public static final int TILE_SIZE = 256;
+    private static final int MAX_TILES = 256;   // 256 tile da 256x256 = 64 MB al massimo
+
+    private final Maze maze;
+    private final MazeStorage storage;
+    private final int wallRgb;
+    private final int floorRgb;
+    private final int outsideRgb;
+    private final IntBinaryOperator visitedRgb;   // Colore opaco del pavimento di una cella visitata (riga, colonna)
+
+    private final Map<Long, BufferedImage> tiles = new LinkedHashMap<Long, BufferedImage>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BufferedImage> eldest) {
+            return size() > MAX_TILES;
+        }
+    };
+
+    public TilePyramid(Maze maze, int wallRgb, int floorRgb, int outsideRgb, IntBinaryOperator visitedRgb) {
+        this.maze = maze;
+        this.storage = maze.getStorage();
+        this.wallRgb = wallRgb;
+        this.floorRgb = floorRgb;
+        this.outsideRgb = outsideRgb;
+        this.visitedRgb = visitedRgb;
+    }
+
+    // Celle per lato coperte da una tile del livello indicato
+    public static int cellsPerTile(int level) {
+        return (TILE_SIZE / 2) << level;
+    }
+
+    // Tile gia' pronta, o null se va ancora calcolata
+    public BufferedImage getTile(int level, int tileX, int tileY) {
+        return tiles.get(key(level, tileX, tileY));
+    }
+
+    public BufferedImage buildTile(int level, int tileX, int tileY) {
+        BufferedImage tile = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = new int[TILE_SIZE * TILE_SIZE];
+        int firstRow = tileY * cellsPerTile(level);
+        int firstCol = tileX * cellsPerTile(level);
+        if (level == 0) {
+            fillCells(pixels, firstRow, firstCol);
+        } else {
+            fillBlocks(pixels, firstRow, firstCol, 1 << (level - 1));
+        }
+        tile.setRGB(0, 0, TILE_SIZE, TILE_SIZE, pixels, 0, TILE_SIZE);
+        tiles.put(key(level, tileX, tileY), tile);
+        return tile;
+    }
+
+    // Le celle indicate sono cambiate: si scartano le tile che le contengono, a ogni livello
+    public void cellsChanged(int minRow, int minCol, int maxRow, int maxCol) {
+        Iterator<Long> keys = tiles.keySet().iterator();
+        while (keys.hasNext()) {
+            long key = keys.next();
+            int level = (int) (key >>> 56);
+            int cells = cellsPerTile(level);
+            int tileY = (int) (key >>> 28) & 0xFFFFFFF;
+            int tileX = (int) key & 0xFFFFFFF;
+            if (tileY >= minRow / cells && tileY <= maxRow / cells && tileX >= minCol / cells && tileX <= maxCol / cells) {
+                keys.remove();
+            }
+        }
+    }
+
+    public void clear() {
+        tiles.clear();
+    }
+
+    private void fillCells(int[] pixels, int firstRow, int firstCol) {
+        for (int y = 0; y < TILE_SIZE; y += 2) {
+            int r = firstRow + y / 2;
+            for (int x = 0; x < TILE_SIZE; x += 2) {
+                int c = firstCol + x / 2;
+                int i = y * TILE_SIZE + x;
+                if (r >= maze.getRows() || c >= maze.getCols()) {
+                    pixels[i] = pixels[i + 1] = pixels[i + TILE_SIZE] = pixels[i + TILE_SIZE + 1] = outsideRgb;
+                    continue;
+                }
+                int floor = maze.isVisited(r, c) ? visitedRgb.applyAsInt(r, c) : floorRgb;
+                pixels[i] = wallRgb;
+                pixels[i + 1] = maze.hasTopWall(r, c) ? wallRgb : floor;
+                pixels[i + TILE_SIZE] = maze.hasLeftWall(r, c) ? wallRgb : floor;
+                pixels[i + TILE_SIZE + 1] = floor;
+            }
+        }
+    }
+
+    // Ogni pixel copre un blocco span x span di celle: si contano muri aperti e celle visitate del blocco
+    private void fillBlocks(int[] pixels, int firstRow, int firstCol, int span) {
+        int rows = maze.getRows(), cols = maze.getCols();
+        for (int y = 0; y < TILE_SIZE; y++) {
+            int r0 = firstRow + y * span;
+            int r1 = Math.min(rows, r0 + span);
+            for (int x = 0; x < TILE_SIZE; x++) {
+                int c0 = firstCol + x * span;
+                int c1 = Math.min(cols, c0 + span);
+                if (r0 >= rows || c0 >= cols) {
+                    pixels[y * TILE_SIZE + x] = outsideRgb;
+                    continue;
+                }
+
+                long openTop = 0, openLeft = 0, visited = 0;
+                for (int r = r0; r < r1; r++) {
+                    if (r > 0) openTop += storage.countBits(MazeStorage.SOUTH, r - 1, c0, c1);
+                    openLeft += storage.countBits(MazeStorage.EAST, r, Math.max(c0, 1) - 1, c1 - 1);
+                    visited += storage.countBits(MazeStorage.VISITED, r, c0, c1);
+                }
+                long cells = (long) (r1 - r0) * (c1 - c0);
+                long wall = 3 * cells - openTop - openLeft;   // Spigoli, muri sopra e muri a sinistra chiusi
+                long floor = 4 * cells - wall;
+                long visitedFloor = floor * visited / cells;
+                int visitedColor = visited > 0 ? visitedRgb.applyAsInt((r0 + r1) / 2, (c0 + c1) / 2) : floorRgb;
+                pixels[y * TILE_SIZE + x] = average(wall, visitedFloor, floor - visitedFloor, visitedColor, 4 * cells);
+            }
+        }
+    }
+
+    private int average(long walls, long visitedFloor, long plainFloor, int visitedColor, long total) {
+        int rgb = 0;
+        for (int shift = 16; shift >= 0; shift -= 8) {
+            long sum = walls * ((wallRgb >> shift) & 0xFF)
+                     + visitedFloor * ((visitedColor >> shift) & 0xFF)
+                     + plainFloor * ((floorRgb >> shift) & 0xFF);
+            rgb |= (int) (sum / total) << shift;
+        }
+        return rgb;
+    }
+
+    private static long key(int level, int tileX, int tileY) {
+        return ((long) level << 56) | ((long) tileY << 28) | tileX;
+    }
+}
@@ -0,0 +1,116 @@
+import java.awt.Graphics2D;
+import java.util.Arrays;
+
+// Geometria dei muri come tratti orizzontali e verticali fusi: ogni muro compare una sola volta
+// e i muri allineati consecutivi diventano un unico tratto. Ogni linea della griglia tiene i suoi
+// tratti come coppie (inizio, fine) in celle, e si ricostruisce solo quando le sue celle cambiano.
+public class WallGeometry {
+    // Oltre questa soglia le linee non restano in memoria: si calcolano ad ogni disegno solo i tratti visibili
+    private static final long MAX_CACHED_CELLS = 1L << 22;
+    private static final int[] NO_RUNS = new int[0];
+
+    private final Maze maze;
+    private final int cellSize;
+    private final int thickness;
+
+    // Linea orizzontale k = bordo superiore della riga k (k = rows: bordo inferiore); idem per le verticali
+    private final int[][] horizontal;
+    private final int[][] vertical;
+    private int[] scratch = new int[64];
+
+    public WallGeometry(Maze maze, int cellSize, int thickness) {
+        this.maze = maze;
+        this.cellSize = cellSize;
+        this.thickness = thickness;
+        boolean cached = (long) maze.getRows() * maze.getCols() <= MAX_CACHED_CELLS;
+        this.horizontal = cached ? new int[maze.getRows() + 1][] : null;
+        this.vertical = cached ? new int[maze.getCols() + 1][] : null;
+    }
+
+    // Le celle indicate sono cambiate: vanno ricostruite solo le linee che le delimitano
+    public void cellsChanged(int minRow, int minCol, int maxRow, int maxCol) {
+        if (horizontal == null) return;
+        for (int k = Math.max(0, minRow); k <= Math.min(maze.getRows(), maxRow + 1); k++) horizontal[k] = null;
+        for (int k = Math.max(0, minCol); k <= Math.min(maze.getCols(), maxCol + 1); k++) vertical[k] = null;
+    }
+
+    public void invalidate() {
+        cellsChanged(0, 0, maze.getRows(), maze.getCols());
+    }
+
+    // Disegna i muri delle celle nell'intervallo indicato (estremi inclusi), con l'origine gia' sul labirinto.
+    // I tratti sono allineati ai pixel: un fillRect per tratto e' molto piu' rapido di uno stroke antialiasato
+    public void draw(Graphics2D g2, int firstRow, int lastRow, int firstCol, int lastCol) {
+        int half = thickness / 2;
+        for (int k = firstRow; k <= lastRow + 1; k++) {
+            int[] runs = horizontalRuns(k, firstCol, lastCol);
+            int y = k * cellSize - half;
+            for (int i = 0; i < runs.length && runs[i] >= 0; i += 2) {
+                if (runs[i + 1] < firstCol || runs[i] > lastCol + 1) continue;
+                g2.fillRect(runs[i] * cellSize - half, y, (runs[i + 1] - runs[i]) * cellSize + thickness, thickness);
+            }
+        }
+        for (int k = firstCol; k <= lastCol + 1; k++) {
+            int[] runs = verticalRuns(k, firstRow, lastRow);
+            int x = k * cellSize - half;
+            for (int i = 0; i < runs.length && runs[i] >= 0; i += 2) {
+                if (runs[i + 1] < firstRow || runs[i] > lastRow + 1) continue;
+                g2.fillRect(x, runs[i] * cellSize - half, thickness, (runs[i + 1] - runs[i]) * cellSize + thickness);
+            }
+        }
+    }
+
+    private int[] horizontalRuns(int k, int firstCol, int lastCol) {
+        if (horizontal == null) return collectHorizontal(k, firstCol, lastCol, false);
+        if (horizontal[k] == null) horizontal[k] = collectHorizontal(k, 0, maze.getCols() - 1, true);
+        return horizontal[k];
+    }
+
+    private int[] verticalRuns(int k, int firstRow, int lastRow) {
+        if (vertical == null) return collectVertical(k, firstRow, lastRow, false);
+        if (vertical[k] == null) vertical[k] = collectVertical(k, 0, maze.getRows() - 1, true);
+        return vertical[k];
+    }
+
+    // Le linee non in cache usano un buffer condiviso terminato da -1, per non allocare ad ogni disegno
+    private int[] collectHorizontal(int k, int firstCol, int lastCol, boolean keep) {
+        int count = 0, start = -1;
+        for (int c = firstCol; c <= lastCol + 1; c++) {
+            boolean wall = c <= lastCol && (k == maze.getRows() || maze.hasTopWall(k, c));
+            if (wall && start < 0) {
+                start = c;
+            } else if (!wall && start >= 0) {
+                count = addRun(count, start, c);
+                start = -1;
+            }
+        }
+        return finish(count, keep);
+    }
+
+    private int[] collectVertical(int k, int firstRow, int lastRow, boolean keep) {
+        int count = 0, start = -1;
+        for (int r = firstRow; r <= lastRow + 1; r++) {
+            boolean wall = r <= lastRow && (k == maze.getCols() || maze.hasLeftWall(r, k));
+            if (wall && start < 0) {
+                start = r;
+            } else if (!wall && start >= 0) {
+                count = addRun(count, start, r);
+                start = -1;
+            }
+        }
+        return finish(count, keep);
+    }
+
+    private int addRun(int count, int start, int end) {
+        if (count + 3 > scratch.length) scratch = Arrays.copyOf(scratch, scratch.length * 2);
+        scratch[count] = start;
+        scratch[count + 1] = end;
+        return count + 2;
+    }
+
+    private int[] finish(int count, boolean keep) {
+        if (keep) return count == 0 ? NO_RUNS : Arrays.copyOf(scratch, count);
+        scratch[count] = -1;
+        return scratch;
+    }
+}
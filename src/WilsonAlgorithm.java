@@ -0,0 +1,60 @@
+import java.util.SplittableRandom;
+
+// Wilson: passeggiate casuali con cancellazione dei cicli fino a toccare l'albero gia' costruito.
+// Produce un albero ricoprente uniforme; l'ultima direzione presa da ogni cella e' in un byte[],
+// quindi i cicli si cancellano da soli sovrascrivendola.
+public class WilsonAlgorithm implements MazeAlgorithm {
+    // Le prime passeggiate su un labirinto grande durano milioni di passi senza scavare:
+    // un punto di controllo per il listener ogni 64k passi
+    private static final int CHECKPOINT_MASK = (1 << 16) - 1;
+
+    @Override
+    public String getName() {
+        return "Wilson";
+    }
+
+    @Override
+    public void generate(MazeStorage storage, SplittableRandom random, CarveListener listener) throws InterruptedException {
+        int rows = storage.getRows(), cols = storage.getCols();
+        byte[] walk = new byte[rows * cols];
+        int steps = 0;
+
+        int root = random.nextInt(rows * cols);
+        Maze.visit(storage, root / cols, root % cols, Maze.NONE, listener);
+
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (storage.isVisited(r, c)) continue;
+
+                // Passeggiata casuale fino all'albero
+                int wr = r, wc = c;
+                while (!storage.isVisited(wr, wc)) {
+                    if ((++steps & CHECKPOINT_MASK) == 0 && listener != null) listener.checkpoint();
+                    int dir = randomDirection(wr, wc, rows, cols, random);
+                    walk[wr * cols + wc] = (byte) dir;
+                    wr += Maze.DR[dir];
+                    wc += Maze.DC[dir];
+                }
+
+                // Si ripercorre il cammino senza cicli aggiungendolo all'albero
+                wr = r;
+                wc = c;
+                while (!storage.isVisited(wr, wc)) {
+                    int dir = walk[wr * cols + wc];
+                    Maze.removeWall(storage, wr, wc, dir);
+                    Maze.visit(storage, wr, wc, dir, listener);
+                    wr += Maze.DR[dir];
+                    wc += Maze.DC[dir];
+                }
+            }
+        }
+    }
+
+    private static int randomDirection(int r, int c, int rows, int cols, SplittableRandom random) {
+        while (true) {
+            int dir = random.nextInt(4);
+            int nr = r + Maze.DR[dir], nc = c + Maze.DC[dir];
+            if (nr >= 0 && nc >= 0 && nr < rows && nc < cols) return dir;
+        }
+    }
+}